@@ -0,0 +1,38 @@
+package org.chandra.dmabackend.benchmark;
+
+import org.chandra.dmabackend.dto.response.EmiBreakdownResult;
+import org.chandra.dmabackend.service.impl.EmiBreakdownServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmiBreakdownBenchmark {
+
+    @Param({"0", "8.5", "18", "36"})
+    public String annualRate;
+
+    private final EmiBreakdownServiceImpl breakdownService = new EmiBreakdownServiceImpl();
+
+    private final BigDecimal openingBalance = new BigDecimal("1834561.27");
+    private final BigDecimal emiAmount = new BigDecimal("21695.48");
+    private BigDecimal monthlyRate;
+
+    @Setup
+    public void setUp() {
+        // Same monthly rate derivation as EmiScheduleGeneratorServiceImpl
+        monthlyRate = new BigDecimal(annualRate).divide(BigDecimal.valueOf(1200), 34, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public EmiBreakdownResult calculate() {
+        return breakdownService.calculate(openingBalance, monthlyRate, emiAmount);
+    }
+}
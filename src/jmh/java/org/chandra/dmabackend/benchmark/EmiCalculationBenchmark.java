@@ -0,0 +1,50 @@
+package org.chandra.dmabackend.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.chandra.dmabackend.service.impl.EmiCalculationServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmiCalculationBenchmark {
+
+    @Param({"12", "60", "360"})
+    public int tenureMonths;
+
+    @Param({"0", "8.5", "18", "36"})
+    public String annualRate;
+
+    private final BigDecimal principal = new BigDecimal("2500000.00");
+    private BigDecimal rate;
+
+    // Factor cache warm after the first call for this (rate, tenure)
+    private EmiCalculationServiceImpl memoized;
+
+    // Zero-sized cache: every call recomputes (1+r)^n, like the unmemoized formula
+    private EmiCalculationServiceImpl uncached;
+
+    @Setup
+    public void setUp() {
+        rate = new BigDecimal(annualRate);
+        memoized = new EmiCalculationServiceImpl(1000, List.of(), List.of(), new SimpleMeterRegistry());
+        uncached = new EmiCalculationServiceImpl(0, List.of(), List.of(), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public BigDecimal memoized() {
+        return memoized.calculateEmi(principal, rate, tenureMonths);
+    }
+
+    @Benchmark
+    public BigDecimal uncached() {
+        return uncached.calculateEmi(principal, rate, tenureMonths);
+    }
+}
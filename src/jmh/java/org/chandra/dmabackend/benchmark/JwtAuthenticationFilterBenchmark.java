@@ -0,0 +1,126 @@
+package org.chandra.dmabackend.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.chandra.dmabackend.repository.RevokedTokenRepository;
+import org.chandra.dmabackend.security.CustomUserDetailsService;
+import org.chandra.dmabackend.security.JwtAuthenticationFilter;
+import org.chandra.dmabackend.security.JwtUtil;
+import org.chandra.dmabackend.security.TokenRevocationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Per-request cost of JwtAuthenticationFilter for valid bearer tokens, user lookup stubbed out.
+// With revocation on, the Bloom filter holds 100k revoked ids and the database check is
+// counted instead of executed, to show how often a request would reach the database.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "your256bitsecretkeyhereyour256bitsecretkeyhere";
+    private static final long EXPIRATION_MS = 86_400_000L;
+    private static final String EMAIL = "bench@example.com";
+    private static final int TOKENS = 1024;
+    private static final int REVOKED = 100_000;
+
+    // 0 turns the verified-claims cache off, so every request verifies the signature once
+    @Param({"10000", "0"})
+    public long claimsCacheSize;
+
+    @Param({"off", "bloom"})
+    public String revocation;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest[] requests;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+    private int next;
+
+    private final AtomicLong databaseChecks = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, EXPIRATION_MS, claimsCacheSize, new SimpleMeterRegistry());
+
+        UserDetails user = new User(EMAIL, "hash", Collections.emptyList());
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(null, 0, Duration.ZERO, new SimpleMeterRegistry()) {
+            @Override
+            public UserDetails loadUserByUsername(String email) {
+                return user;
+            }
+        };
+
+        RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+        when(repository.existsByJti(anyString())).thenAnswer(invocation -> {
+            databaseChecks.incrementAndGet();
+            return false;
+        });
+
+        TokenRevocationService revocationService =
+                new TokenRevocationService(repository, mock(TransactionTemplate.class), mock(JdbcTemplate.class), REVOKED, 0.01) {
+                    @Override
+                    public boolean isRevoked(String jti) {
+                        return !"off".equals(revocation) && super.isRevoked(jti);
+                    }
+                };
+
+        if ("bloom".equals(revocation)) {
+            LocalDateTime expiry = LocalDateTime.now().plusDays(1);
+            for (int i = 0; i < REVOKED; i++) {
+                revocationService.revoke(UUID.randomUUID().toString(), expiry);
+            }
+        }
+        databaseChecks.set(0);
+
+        filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, revocationService);
+
+        // Distinct live tokens, so the share reaching the database reflects the false-positive rate
+        requests = new MockHttpServletRequest[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            requests[i] = new MockHttpServletRequest("GET", "/api/loans/summary");
+            requests[i].addHeader("Authorization", "Bearer " + jwtUtil.generateToken(1L, EMAIL));
+        }
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @TearDown
+    public void tearDown() {
+        if ("bloom".equals(revocation)) {
+            System.out.printf("%n%d of %d requests needed a database check%n", databaseChecks.get(), requestCount.get());
+        }
+    }
+
+    @Benchmark
+    public Object authenticate() throws Exception {
+        MockHttpServletRequest request = requests[next++ & (TOKENS - 1)];
+        requestCount.incrementAndGet();
+        SecurityContextHolder.clearContext();
+        // OncePerRequestFilter marks the request as filtered, so clear that between invocations
+        request.clearAttributes();
+        filter.doFilter(request, response, chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
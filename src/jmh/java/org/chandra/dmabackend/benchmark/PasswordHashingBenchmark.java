@@ -0,0 +1,69 @@
+package org.chandra.dmabackend.benchmark;
+
+import org.chandra.dmabackend.exception.ServiceBusyException;
+import org.chandra.dmabackend.security.PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// A login burst next to cheap requests: BCrypt either on the request threads ("inline")
+// or on the bounded password executor, measured by the latency the cheap requests see
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Group)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"inline", "executor"})
+    public String mode;
+
+    private BCryptPasswordEncoder encoder;
+    private String passwordHash;
+    private ThreadPoolExecutor executor;
+    private PasswordHasher hasher;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(10);
+        passwordHash = encoder.encode(PASSWORD);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(64), new ThreadPoolExecutor.AbortPolicy());
+        hasher = new PasswordHasher(encoder, executor, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(8)
+    public boolean login() {
+        if ("inline".equals(mode)) {
+            return encoder.matches(PASSWORD, passwordHash);
+        }
+        try {
+            return hasher.matches(PASSWORD, passwordHash).join();
+        } catch (ServiceBusyException busy) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(2)
+    public void cheapRequest() {
+        Blackhole.consumeCPU(10_000);
+    }
+}
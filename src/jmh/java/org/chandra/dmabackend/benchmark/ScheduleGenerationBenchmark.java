@@ -0,0 +1,63 @@
+package org.chandra.dmabackend.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.chandra.dmabackend.model.EmiSchedule;
+import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.service.impl.CentsEmiScheduleGeneratorServiceImpl;
+import org.chandra.dmabackend.service.impl.EmiBreakdownServiceImpl;
+import org.chandra.dmabackend.service.impl.EmiCalculationServiceImpl;
+import org.chandra.dmabackend.service.impl.EmiScheduleGeneratorServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleGenerationBenchmark {
+
+    @Param({"12", "60", "360"})
+    public int tenureMonths;
+
+    @Param({"0", "8.5", "18", "36"})
+    public String annualRate;
+
+    private EmiScheduleGeneratorServiceImpl bigDecimalEngine;
+    private CentsEmiScheduleGeneratorServiceImpl centsEngine;
+    private Loan loan;
+
+    @Setup
+    public void setUp() {
+        EmiBreakdownServiceImpl breakdownService = new EmiBreakdownServiceImpl();
+        bigDecimalEngine = new EmiScheduleGeneratorServiceImpl(breakdownService);
+        centsEngine = new CentsEmiScheduleGeneratorServiceImpl(breakdownService);
+
+        BigDecimal principal = new BigDecimal("2500000.00");
+        BigDecimal rate = new BigDecimal(annualRate);
+        EmiCalculationServiceImpl emiCalculationService =
+                new EmiCalculationServiceImpl(10, List.of(), List.of(), new SimpleMeterRegistry());
+
+        loan = new Loan();
+        loan.setPrincipal(principal);
+        loan.setInterestRate(rate);
+        loan.setTenureMonths(tenureMonths);
+        loan.setEmiAmount(emiCalculationService.calculateEmi(principal, rate, tenureMonths));
+        loan.setEmiStartDate(LocalDate.of(2025, 1, 5));
+    }
+
+    @Benchmark
+    public List<EmiSchedule> bigDecimalEngine() {
+        return bigDecimalEngine.generateSchedule(loan);
+    }
+
+    @Benchmark
+    public List<EmiSchedule> centsEngine() {
+        return centsEngine.generateSchedule(loan);
+    }
+}
@@ -0,0 +1,83 @@
+package org.chandra.dmabackend.benchmark;
+
+import org.chandra.dmabackend.dto.response.EmiScheduleResponse;
+import org.chandra.dmabackend.model.EmiSchedule;
+import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.model.User;
+import org.chandra.dmabackend.repository.EmiScheduleRepository;
+import org.chandra.dmabackend.repository.LoanRepository;
+import org.chandra.dmabackend.repository.UserRepository;
+import org.chandra.dmabackend.service.EmiCalculationService;
+import org.chandra.dmabackend.service.LoanDateService;
+import org.chandra.dmabackend.service.LoanStatusManager;
+import org.chandra.dmabackend.service.impl.EmiBreakdownServiceImpl;
+import org.chandra.dmabackend.service.impl.EmiScheduleGeneratorServiceImpl;
+import org.chandra.dmabackend.service.impl.LoanServiceImpl;
+import org.chandra.dmabackend.service.impl.MaterializedEmiScheduleStoreImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Entity-to-DTO cost of LoanServiceImpl.getSchedule with the repositories stubbed out
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleMappingBenchmark {
+
+    private static final Long LOAN_ID = 1L;
+    private static final Long USER_ID = 7L;
+
+    @Param({"12", "60", "360"})
+    public int tenureMonths;
+
+    private LoanServiceImpl loanService;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(USER_ID);
+
+        Loan loan = new Loan();
+        loan.setId(LOAN_ID);
+        loan.setUser(user);
+        loan.setPrincipal(new BigDecimal("2500000.00"));
+        loan.setInterestRate(new BigDecimal("8.50"));
+        loan.setTenureMonths(tenureMonths);
+        loan.setEmiAmount(new BigDecimal("21695.48"));
+        loan.setEmiStartDate(LocalDate.of(2025, 1, 5));
+
+        List<EmiSchedule> schedule =
+                new EmiScheduleGeneratorServiceImpl(new EmiBreakdownServiceImpl()).generateSchedule(loan);
+
+        LoanRepository loanRepository = mock(LoanRepository.class);
+        EmiScheduleRepository emiScheduleRepository = mock(EmiScheduleRepository.class);
+        when(loanRepository.findById(LOAN_ID)).thenReturn(Optional.of(loan));
+        when(emiScheduleRepository.findByLoanOrderByMonthIndexAsc(loan)).thenReturn(schedule);
+
+        loanService = new LoanServiceImpl(
+                mock(UserRepository.class),
+                mock(LoanDateService.class),
+                mock(EmiCalculationService.class),
+                loanRepository,
+                new MaterializedEmiScheduleStoreImpl(emiScheduleRepository,
+                        new EmiScheduleGeneratorServiceImpl(new EmiBreakdownServiceImpl())),
+                mock(LoanStatusManager.class),
+                event -> { }
+        );
+    }
+
+    @Benchmark
+    public List<EmiScheduleResponse> getSchedule() {
+        return loanService.getSchedule(LOAN_ID, USER_ID);
+    }
+}
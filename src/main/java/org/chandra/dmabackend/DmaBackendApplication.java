@@ -2,8 +2,10 @@ package org.chandra.dmabackend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DmaBackendApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,99 @@
+package org.chandra.dmabackend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.chandra.dmabackend.exception.ServiceBusyException;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Lets at most as many API requests run as there are database connections.
+// With virtual threads Tomcat no longer caps concurrency, so without this gate thousands of
+// requests would queue inside Hikari and fail with connection timeouts instead of a quick 503.
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT = AdmissionControlInterceptor.class.getName() + ".PERMIT";
+
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final long retryAfterSeconds;
+    private final Counter rejected;
+
+    public AdmissionControlInterceptor(int permits, Duration maxWait, long retryAfterSeconds, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(permits, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.rejected = meterRegistry.counter("web.admission.rejected");
+
+        Gauge.builder("web.admission.available", this.permits, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws InterruptedException {
+
+        // The async dispatch that writes a CompletableFuture result does no database work
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+
+        if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+            rejected.increment();
+            throw new ServiceBusyException("Server is at capacity, please retry", retryAfterSeconds);
+        }
+
+        request.setAttribute(PERMIT, new AtomicBoolean(true));
+        return true;
+    }
+
+    // Async work still uses the database: a CompletableFuture continues with a transaction on
+    // another executor, and a streaming body holds a connection and cursor while it writes.
+    // So the permit is kept until the async cycle ends; afterCompletion of the async dispatch
+    // usually releases it first, the listener covers timeouts, errors and aborted clients.
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                release(request);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                release(request);
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                release(request);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    // Called from the request, the async dispatch and the async listener; only the first releases
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(PERMIT) instanceof AtomicBoolean held && held.compareAndSet(true, false)) {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.chandra.dmabackend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final boolean admissionEnabled;
+    private final int admissionPermits;
+    private final Duration admissionMaxWait;
+    private final long retryAfterSeconds;
+    private final MeterRegistry meterRegistry;
+
+    // The gate defaults to on exactly when requests run on virtual threads, with one permit per
+    // pooled connection the overdue sweep does not need: each of its workers holds a job-lock
+    // connection and a work connection while it runs
+    public WebConfig(@Value("${web.admission.enabled:${spring.threads.virtual.enabled:false}}") boolean admissionEnabled,
+                     @Value("${web.admission.permits:#{null}}") Integer admissionPermits,
+                     @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                     @Value("${emi.overdue-sweep.enabled:true}") boolean sweepEnabled,
+                     @Value("${emi.overdue-sweep.workers:2}") int sweepWorkers,
+                     @Value("${web.admission.max-wait:2s}") Duration admissionMaxWait,
+                     @Value("${web.admission.retry-after-seconds:1}") long retryAfterSeconds,
+                     MeterRegistry meterRegistry) {
+        this.admissionEnabled = admissionEnabled;
+        this.admissionPermits = admissionPermits != null
+                ? admissionPermits
+                : Math.max(1, poolSize - (sweepEnabled ? 2 * sweepWorkers : 0));
+        this.admissionMaxWait = admissionMaxWait;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (admissionEnabled) {
+            registry.addInterceptor(new AdmissionControlInterceptor(
+                            admissionPermits, admissionMaxWait, retryAfterSeconds, meterRegistry))
+                    .addPathPatterns("/api/**");
+        }
+    }
+}
@@ -2,40 +2,66 @@ package org.chandra.dmabackend.controller;
 
 import jakarta.validation.Valid;
 import org.chandra.dmabackend.dto.request.LoginRequest;
+import org.chandra.dmabackend.dto.request.RefreshTokenRequest;
 import org.chandra.dmabackend.dto.request.RegisterRequest;
 import org.chandra.dmabackend.dto.response.LoginResponse;
 import org.chandra.dmabackend.dto.response.RegisterResponse;
+import org.chandra.dmabackend.service.TokenService;
 import org.chandra.dmabackend.service.UserService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 public class AuthController {
 
     private UserService userService;
+    private TokenService tokenService;
 
-    public AuthController(UserService userService) {
+    public AuthController(UserService userService, TokenService tokenService) {
         this.userService = userService;
+        this.tokenService = tokenService;
     }
 
     @PostMapping("/api/auth/register")
-    public ResponseEntity<RegisterResponse> register(@Valid @RequestBody RegisterRequest request){
-
-        RegisterResponse response = userService.register(request);
+    public CompletableFuture<ResponseEntity<RegisterResponse>> register(@Valid @RequestBody RegisterRequest request){
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        // The request thread is released while the password is hashed
+        return userService.register(request)
+                .thenApply(response -> ResponseEntity.status(HttpStatus.CREATED).body(response));
     }
 
     @PostMapping("/api/auth/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request){
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@Valid @RequestBody LoginRequest request){
+
+        return userService.login(request)
+                .thenApply(response -> ResponseEntity.status(HttpStatus.OK).body(response));
+
+    }
 
-        LoginResponse response = userService.login(request);
+    @PostMapping("/api/auth/refresh")
+    public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshTokenRequest request){
+
+        LoginResponse response = tokenService.refresh(request.getRefreshToken());
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    @PostMapping("/api/auth/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest request,
+                                       @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader){
+
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+
+        tokenService.logout(request.getRefreshToken(), accessToken);
 
+        return ResponseEntity.noContent().build();
     }
 
 }
@@ -0,0 +1,24 @@
+package org.chandra.dmabackend.controller;
+
+import org.chandra.dmabackend.dto.KeysetPage;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+// A keyset page keeps the plain array body of the unpaged endpoint;
+// the cursor of the next page travels in a header and is absent on the last page
+final class KeysetPageResponses {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private KeysetPageResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> ok(String eTag, KeysetPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag);
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+}
@@ -1,5 +1,6 @@
 package org.chandra.dmabackend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.chandra.dmabackend.dto.request.ExistingLoanRequest;
 import org.chandra.dmabackend.dto.request.NewLoanRequest;
@@ -8,94 +9,144 @@ import org.chandra.dmabackend.dto.response.LoanHealthResponse;
 import org.chandra.dmabackend.dto.response.LoanResponse;
 import org.chandra.dmabackend.dto.response.LoanSummaryResponse;
 import org.chandra.dmabackend.model.Loan;
-import org.chandra.dmabackend.model.User;
 import org.chandra.dmabackend.repository.LoanRepository;
-import org.chandra.dmabackend.repository.UserRepository;
+import org.chandra.dmabackend.security.AuthenticatedUser;
 import org.chandra.dmabackend.service.LoanService;
 import org.chandra.dmabackend.service.LoanStatusManager;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 public class LoanController {
 
-    private final UserRepository userRepository;
     private final LoanService loanService;
     private final LoanRepository loanRepository;
     private final LoanStatusManager loanStatusManager;
+    private final ObjectMapper objectMapper;
 
-    public LoanController(UserRepository userRepository,LoanRepository loanRepository, LoanService loanService, LoanStatusManager loanStatusManager) {
-        this.userRepository = userRepository;
+    public LoanController(LoanRepository loanRepository, LoanService loanService, LoanStatusManager loanStatusManager,
+                          ObjectMapper objectMapper) {
         this.loanService = loanService;
         this.loanRepository = loanRepository;
         this.loanStatusManager = loanStatusManager;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/api/loans/new")
-    public ResponseEntity<LoanResponse> createNewLoan(@AuthenticationPrincipal UserDetails user,
+    public ResponseEntity<LoanResponse> createNewLoan(@AuthenticationPrincipal AuthenticatedUser user,
                                                       @Valid @RequestBody NewLoanRequest request){
-        User dbUser = userRepository.findByEmail(user.getUsername())
-                .orElseThrow(()->new IllegalArgumentException("Invalid Credentials"));
 
-        LoanResponse response = loanService.createNewLoan(request, dbUser.getId());
+        LoanResponse response = loanService.createNewLoan(request, user.getId());
 
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
 
     }
 
     @PostMapping("/api/loans/existing")
-    public ResponseEntity<LoanResponse> createExistingLoan(@AuthenticationPrincipal UserDetails user,
+    public ResponseEntity<LoanResponse> createExistingLoan(@AuthenticationPrincipal AuthenticatedUser user,
                                                            @Valid @RequestBody ExistingLoanRequest request){
-        User dbUser = userRepository.findByEmail(user.getUsername())
-                .orElseThrow(()->new IllegalArgumentException("Invalid Credentials"));
-        LoanResponse response = loanService.createExistingLoan(request, dbUser.getId());
+        LoanResponse response = loanService.createExistingLoan(request, user.getId());
 
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    // Without paging parameters the whole schedule is returned, as before
     @GetMapping("/api/loans/{loanId}/schedule")
-    private ResponseEntity<List<EmiScheduleResponse>> getEmiSchedule(@AuthenticationPrincipal UserDetails user,
-                                                     @PathVariable Long loanId){
-        User dbUser = userRepository.findByEmail(user.getUsername())
-                .orElseThrow(()->new IllegalArgumentException("Invalid Credentials"));
+    private ResponseEntity<List<EmiScheduleResponse>> getEmiSchedule(@AuthenticationPrincipal AuthenticatedUser user,
+                                                     @PathVariable Long loanId,
+                                                     @RequestParam(required = false) String after,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                     @RequestParam(required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                     WebRequest webRequest){
+
+        String eTag = loanETag(loanId, user.getId());
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        if (after != null || limit != null || from != null || to != null) {
+            return KeysetPageResponses.ok(eTag,
+                    loanService.getSchedulePage(loanId, user.getId(), after, from, to, limit));
+        }
+
+        List<EmiScheduleResponse> responses = loanService.getSchedule(loanId, user.getId());
+
+        return ResponseEntity.ok().eTag(eTag).body(responses);
 
-        List<EmiScheduleResponse> responses = loanService.getSchedule(loanId, dbUser.getId());
-
-        return ResponseEntity.ok(responses);
+    }
 
+    // Same rows as /schedule, one JSON object per line, written while they are read
+    @GetMapping(value = "/api/loans/{loanId}/schedule/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEmiSchedule(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                   @PathVariable Long loanId,
+                                                                   WebRequest webRequest){
+
+        // Errors must surface before the body starts, so unknown or foreign loans fail here
+        String eTag = loanETag(loanId, user.getId());
+        if (eTag == null) {
+            throw new IllegalArgumentException("Loan not found");
+        }
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        Long userId = user.getId();
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, out)) {
+                loanService.streamSchedule(loanId, userId, writer::write);
+            }
+        };
+
+        // checkNotModified already set the ETag header; streaming bodies would add it a second time
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/api/loans/{loanId}/health")
     public ResponseEntity<LoanHealthResponse> getLoanHealth(
-            @AuthenticationPrincipal UserDetails user,
-            @PathVariable Long loanId) {
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @PathVariable Long loanId,
+            WebRequest webRequest) {
+
 
-        User dbUser = userRepository.findByEmail(user.getUsername())
-                .orElseThrow(() -> new IllegalArgumentException("Invalid Credentials"));
+        String eTag = loanETag(loanId, user.getId());
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
 
         LoanHealthResponse response =
-                loanStatusManager.evaluateLoanHealth(loanId, dbUser.getId());
+                loanStatusManager.evaluateLoanHealth(loanId, user.getId());
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(eTag).body(response);
     }
 
     @GetMapping("/api/loans/summary")
     public ResponseEntity<List<LoanSummaryResponse>> getLoanSummaries(
-            @AuthenticationPrincipal UserDetails user) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
 
-        User dbUser = userRepository.findByEmail(user.getUsername())
-                .orElseThrow(() -> new IllegalArgumentException("Invalid Credentials"));
 
         List<LoanSummaryResponse> summaries =
-                loanStatusManager.getUserLoanSummaries(dbUser.getId());
+                loanStatusManager.getUserLoanSummaries(user.getId());
 
         return ResponseEntity.ok(summaries);
     }
 
-
+    // Read before the body, so a concurrent change can only leave the ETag older than the body.
+    // Null for unknown or foreign loans, which then fail in the service as before.
+    private String loanETag(Long loanId, Long userId) {
+        return loanRepository.findVersionByIdAndUserId(loanId, userId)
+                .map(version -> LoanETag.of(loanId, version))
+                .orElse(null);
+    }
 }
@@ -0,0 +1,12 @@
+package org.chandra.dmabackend.controller;
+
+// Strong ETag for loan representations that only change together with the loan's version
+final class LoanETag {
+
+    private LoanETag() {
+    }
+
+    static String of(Long loanId, Long version) {
+        return "\"" + loanId + "-" + version + "\"";
+    }
+}
@@ -1,105 +1,157 @@
 package org.chandra.dmabackend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import org.chandra.dmabackend.dto.request.BatchEmiPaymentRequest;
 import org.chandra.dmabackend.dto.request.ForeclosureRequest;
 import org.chandra.dmabackend.dto.request.MarkPaidRequest;
 import org.chandra.dmabackend.dto.request.PartPaymentRequest;
 import org.chandra.dmabackend.dto.response.*;
 import org.chandra.dmabackend.dto.request.PayEmiRequest;
 import org.chandra.dmabackend.model.Loan;
-import org.chandra.dmabackend.model.User;
 import org.chandra.dmabackend.repository.LoanRepository;
-import org.chandra.dmabackend.repository.UserRepository;
+import org.chandra.dmabackend.security.AuthenticatedUser;
 import org.chandra.dmabackend.service.RepaymentService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 public class RepaymentController {
 
-    private final UserRepository userRepository;
     private final RepaymentService repaymentService;
     private final LoanRepository loanRepository;
+    private final ObjectMapper objectMapper;
 
-    public RepaymentController(UserRepository userRepository, RepaymentService repaymentService, LoanRepository loanRepository) {
-        this.userRepository = userRepository;
+    public RepaymentController(RepaymentService repaymentService, LoanRepository loanRepository,
+                               ObjectMapper objectMapper) {
         this.repaymentService = repaymentService;
         this.loanRepository = loanRepository;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/api/repayment/emi/{emiId}")
-    public ResponseEntity<PayEmiResponse> payEmi(@AuthenticationPrincipal UserDetails user,
+    public ResponseEntity<PayEmiResponse> payEmi(@AuthenticationPrincipal AuthenticatedUser user,
                                                  @PathVariable Long emiId,
                                                  @RequestBody PayEmiRequest request){
-        User dbUser = userRepository.findByEmail(user.getUsername())
-                .orElseThrow(()->new IllegalArgumentException("Invalid Credentials"));
 
-        PayEmiResponse response = repaymentService.payEmi(emiId, dbUser.getId(), request.getAmountPaid());
+        PayEmiResponse response = repaymentService.payEmi(emiId, user.getId(), request.getAmountPaid());
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
 
     }
 
+    // Several EMIs, across loans if needed, paid in one transaction; each item reports its own outcome
+    @PostMapping("/api/repayment/emi/batch")
+    public ResponseEntity<BatchEmiPaymentResponse> payEmis(@AuthenticationPrincipal AuthenticatedUser user,
+                                                           @Valid @RequestBody BatchEmiPaymentRequest request){
+
+        BatchEmiPaymentResponse response = repaymentService.payEmis(user.getId(), request.getPayments());
+
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
     @PostMapping("/api/repayment/part-payment/{loanId}")
-    public ResponseEntity<PartPaymentResponse> makePartPayment(@AuthenticationPrincipal UserDetails user,
+    public ResponseEntity<PartPaymentResponse> makePartPayment(@AuthenticationPrincipal AuthenticatedUser user,
                                                                @PathVariable Long loanId,
                                                                @RequestBody PartPaymentRequest request){
-        User dbUser =  userRepository.findByEmail(user.getUsername())
-                .orElseThrow(()->new IllegalArgumentException("Invalid Credentials"));
-        PartPaymentResponse response = repaymentService.partPayment(loanId, dbUser.getId(), request.getAmountPaid());
+        PartPaymentResponse response = repaymentService.partPayment(loanId, user.getId(), request.getAmountPaid());
 
         return  ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
     @PostMapping("/api/repayment/foreclose/{loanId}")
-    public ResponseEntity<ForeclosureResponse> foreclose(@AuthenticationPrincipal UserDetails user,
+    public ResponseEntity<ForeclosureResponse> foreclose(@AuthenticationPrincipal AuthenticatedUser user,
                                                          @PathVariable Long loanId,
                                                          @RequestBody ForeclosureRequest request){
-        User dbUSer = userRepository.findByEmail(user.getUsername())
-                .orElseThrow(()->new IllegalArgumentException("Invalid Credentials"));
-        ForeclosureResponse response = repaymentService.forecloseLoan(loanId, dbUSer.getId(), request.getAmountPaid());
+        ForeclosureResponse response = repaymentService.forecloseLoan(loanId, user.getId(), request.getAmountPaid());
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
+    // Without paging parameters the whole history is returned, as before
     @GetMapping("/api/repayment/history/{loanId}")
-    public ResponseEntity<List<RepaymentHistoryResponse>> getHistory(@AuthenticationPrincipal UserDetails user,
-                                                                     @PathVariable Long loanId){
-        User dbUser = userRepository.findByEmail(user.getUsername())
-                .orElseThrow(()->new IllegalArgumentException("Invalid Credentials"));
-        List<RepaymentHistoryResponse> responses = repaymentService.getRepaymentHistory(loanId,dbUser.getId());
+    public ResponseEntity<List<RepaymentHistoryResponse>> getHistory(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                     @PathVariable Long loanId,
+                                                                     @RequestParam(required = false) String after,
+                                                                     @RequestParam(required = false) Integer limit,
+                                                                     @RequestParam(required = false)
+                                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                     @RequestParam(required = false)
+                                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                     WebRequest webRequest){
+
+        // Every payment bumps the loan's version, so it also versions the history
+        String eTag = loanRepository.findVersionByIdAndUserId(loanId, user.getId())
+                .map(version -> LoanETag.of(loanId, version))
+                .orElse(null);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        if (after != null || limit != null || from != null || to != null) {
+            return KeysetPageResponses.ok(eTag,
+                    repaymentService.getRepaymentHistoryPage(loanId, user.getId(), after, from, to, limit));
+        }
+
+        List<RepaymentHistoryResponse> responses = repaymentService.getRepaymentHistory(loanId,user.getId());
+
+        return ResponseEntity.status(HttpStatus.OK).eTag(eTag).body(responses);
+    }
 
-        return ResponseEntity.status(HttpStatus.OK).body(responses);
+    // Same payments as /history, one JSON object per line, written while they are read
+    @GetMapping(value = "/api/repayment/history/{loanId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamHistory(@AuthenticationPrincipal AuthenticatedUser user,
+                                                               @PathVariable Long loanId,
+                                                               WebRequest webRequest){
+
+        // Errors must surface before the body starts, so unknown or foreign loans fail here
+        String eTag = loanRepository.findVersionByIdAndUserId(loanId, user.getId())
+                .map(version -> LoanETag.of(loanId, version))
+                .orElseThrow(() -> new IllegalArgumentException("Loan not found"));
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        Long userId = user.getId();
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, out)) {
+                repaymentService.streamRepaymentHistory(loanId, userId, writer::write);
+            }
+        };
+
+        // checkNotModified already set the ETag header; streaming bodies would add it a second time
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PostMapping("/api/emi/{emiId}/mark-paid")
-    public ResponseEntity<MarkPaidResponse> markPaid(@AuthenticationPrincipal UserDetails user,
+    public ResponseEntity<MarkPaidResponse> markPaid(@AuthenticationPrincipal AuthenticatedUser user,
                                                      @PathVariable Long emiId,
                                                      @RequestBody MarkPaidRequest request) {
 
-        User dbUser = userRepository.findByEmail(user.getUsername())
-                .orElseThrow(() -> new IllegalArgumentException("Invalid Credentials"));
 
         MarkPaidResponse response =
-                repaymentService.markEmiPaid(emiId, dbUser.getId(), request.getActualPaymentDate());
+                repaymentService.markEmiPaid(emiId, user.getId(), request.getActualPaymentDate());
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
     @PostMapping("/api/emi/{emiId}/mark-missed")
     public ResponseEntity<MarkMissedResponse> markMissed(
-            @AuthenticationPrincipal UserDetails user,
+            @AuthenticationPrincipal AuthenticatedUser user,
             @PathVariable Long emiId) {
 
-        User dbUser = userRepository.findByEmail(user.getUsername())
-                .orElseThrow(() -> new IllegalArgumentException("Invalid Credentials"));
 
         MarkMissedResponse response =
-                repaymentService.markEmiMissed(emiId, dbUser.getId());
+                repaymentService.markEmiMissed(emiId, user.getId());
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
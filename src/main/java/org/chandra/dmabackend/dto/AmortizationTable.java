@@ -0,0 +1,32 @@
+package org.chandra.dmabackend.dto;
+
+import lombok.Getter;
+
+// Amortization rows held as fixed-point paise/cents in parallel arrays.
+// Row i (0-based) is month index i + 1.
+@Getter
+public class AmortizationTable {
+
+    private final long[] openingBalance;
+    private final long[] interestComponent;
+    private final long[] principalComponent;
+    private final long[] closingBalance;
+
+    private int rows;
+
+    public AmortizationTable(int capacity) {
+        this.openingBalance = new long[capacity];
+        this.interestComponent = new long[capacity];
+        this.principalComponent = new long[capacity];
+        this.closingBalance = new long[capacity];
+    }
+
+    public void addRow(long opening, long interest, long principal, long closing) {
+        openingBalance[rows] = opening;
+        interestComponent[rows] = interest;
+        principalComponent[rows] = principal;
+        closingBalance[rows] = closing;
+        rows++;
+    }
+
+}
@@ -0,0 +1,17 @@
+package org.chandra.dmabackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// One page of rows plus the cursor of the next page; nextCursor is null on the last page
+@AllArgsConstructor
+@Getter
+public class KeysetPage<T> {
+
+    private final List<T> items;
+
+    private final String nextCursor;
+
+}
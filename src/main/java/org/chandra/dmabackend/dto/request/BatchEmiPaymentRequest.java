@@ -0,0 +1,24 @@
+package org.chandra.dmabackend.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class BatchEmiPaymentRequest {
+
+    // Ten years of monthly EMIs
+    public static final int MAX_ITEMS = 120;
+
+    @NotEmpty
+    @Size(max = MAX_ITEMS)
+    private List<@Valid @NotNull EmiPaymentItem> payments;
+}
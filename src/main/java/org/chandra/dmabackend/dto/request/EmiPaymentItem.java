@@ -0,0 +1,21 @@
+package org.chandra.dmabackend.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class EmiPaymentItem {
+
+    @NotNull
+    private Long emiId;
+
+    private BigDecimal amountPaid;  // optional, defaults to the EMI amount
+}
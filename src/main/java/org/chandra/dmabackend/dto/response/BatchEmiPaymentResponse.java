@@ -0,0 +1,20 @@
+package org.chandra.dmabackend.dto.response;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class BatchEmiPaymentResponse {
+
+    private int paidCount;
+    private int rejectedCount;
+
+    // In request order
+    private List<EmiPaymentResult> results;
+
+}
@@ -0,0 +1,32 @@
+package org.chandra.dmabackend.dto.response;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Outcome of one item of a batch payment: the payment when it was made, the reason when not
+@NoArgsConstructor
+@Getter
+@Setter
+public class EmiPaymentResult {
+
+    private Long emiId;
+    private boolean paid;
+    private String error;
+    private PayEmiResponse payment;
+
+    public static EmiPaymentResult paid(PayEmiResponse payment) {
+        EmiPaymentResult result = new EmiPaymentResult();
+        result.setEmiId(payment.getEmiId());
+        result.setPaid(true);
+        result.setPayment(payment);
+        return result;
+    }
+
+    public static EmiPaymentResult rejected(Long emiId, String error) {
+        EmiPaymentResult result = new EmiPaymentResult();
+        result.setEmiId(emiId);
+        result.setError(error);
+        return result;
+    }
+}
@@ -0,0 +1,5 @@
+package org.chandra.dmabackend.event;
+
+// Published whenever a loan or its schedule changes, so that per-user views can be refreshed
+public record LoanChangedEvent(Long userId, Long loanId) {
+}
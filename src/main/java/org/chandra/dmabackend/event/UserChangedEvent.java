@@ -0,0 +1,6 @@
+package org.chandra.dmabackend.event;
+
+// Published when a user row is updated or deleted, so that cached credentials can be dropped;
+// previousEmail is the email before the change, null when it is not known
+public record UserChangedEvent(String email, String previousEmail) {
+}
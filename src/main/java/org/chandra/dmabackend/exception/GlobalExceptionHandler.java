@@ -1,8 +1,10 @@
 package org.chandra.dmabackend.exception;
 
 import org.chandra.dmabackend.dto.response.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -67,6 +69,32 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse,HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public  ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex){
+
+        ErrorResponse errorResponse = buildErrorResponse(
+                "CONCURRENT_MODIFICATION",
+                "Loan was modified by another request, please retry",
+                HttpStatus.CONFLICT
+        );
+
+        return new ResponseEntity<>(errorResponse,HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public  ResponseEntity<ErrorResponse> handleServiceBusy(ServiceBusyException ex){
+
+        ErrorResponse errorResponse = buildErrorResponse(
+                "SERVICE_BUSY",
+                ex.getMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
     @ExceptionHandler(Exception.class)
     public  ResponseEntity<ErrorResponse> handleException(Exception ex){
 
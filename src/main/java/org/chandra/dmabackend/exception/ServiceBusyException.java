@@ -0,0 +1,15 @@
+package org.chandra.dmabackend.exception;
+
+import lombok.Getter;
+
+// Thrown when a bounded resource is saturated; answered with 503 and Retry-After
+@Getter
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -55,7 +56,52 @@ public class Loan extends BaseEntity{
     @Column(name = "part_payment_allowed", nullable = false)
     private Boolean partPaymentAllowed = false;
 
-    @Column(name = "status", nullable = false, length = 20)
-    private String status;
+    @Column(name = "status", nullable = false)
+    private LoanStatus status;
+
+    // Bumped on every change to the loan, which every repayment operation makes;
+    // also serves as the ETag for the loan's schedule, health and history
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
+    // EMI counters and next-due EMI, kept in step with emi_schedule by the repayment operations
+
+    @ColumnDefault("0")
+    @Column(name = "total_emi_count", nullable = false)
+    private Integer totalEmiCount = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "paid_emi_count", nullable = false)
+    private Integer paidEmiCount = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "pending_emi_count", nullable = false)
+    private Integer pendingEmiCount = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "missed_emi_count", nullable = false)
+    private Integer missedEmiCount = 0;
+
+    @Column(name = "next_emi_id")
+    private Long nextEmiId;
+
+    @Column(name = "next_emi_month_index")
+    private Integer nextEmiMonthIndex;
+
+    @Column(name = "next_emi_due_date")
+    private LocalDate nextEmiDueDate;
+
+    @Column(name = "next_emi_amount", precision = 12, scale = 2)
+    private BigDecimal nextEmiAmount;
+
+    // The next EMI always comes from a stored row, so that it can be paid by id
+    public void setNextEmi(EmiSchedule nextPending) {
+        this.nextEmiId = nextPending == null ? null : nextPending.getId();
+        this.nextEmiMonthIndex = nextPending == null ? null : nextPending.getMonthIndex();
+        this.nextEmiDueDate = nextPending == null ? null : nextPending.getDueDate();
+        this.nextEmiAmount = nextPending == null ? null : nextPending.getEmiAmount();
+    }
 
 }
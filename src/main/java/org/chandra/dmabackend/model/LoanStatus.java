@@ -0,0 +1,35 @@
+package org.chandra.dmabackend.model;
+
+// Stored as a smallint through LoanStatusConverter. The codes are part of the schema
+// (partial indexes and native queries use them), so they must never be renumbered.
+public enum LoanStatus {
+
+    ACTIVE(1),
+    OVERDUE(2),
+    CLOSED(3),
+    FORECLOSED(4);
+
+    private final short code;
+
+    LoanStatus(int code) {
+        this.code = (short) code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    // ACTIVE and OVERDUE loans still have EMIs to collect and accept repayments
+    public boolean isOpen() {
+        return this == ACTIVE || this == OVERDUE;
+    }
+
+    public static LoanStatus fromCode(short code) {
+        for (LoanStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown loan status code: " + code);
+    }
+}
@@ -0,0 +1,19 @@
+package org.chandra.dmabackend.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Explicit codes instead of @Enumerated(ORDINAL), so reordering the enum cannot change stored data
+@Converter(autoApply = true)
+public class LoanStatusConverter implements AttributeConverter<LoanStatus, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(LoanStatus status) {
+        return status == null ? null : status.getCode();
+    }
+
+    @Override
+    public LoanStatus convertToEntityAttribute(Short code) {
+        return code == null ? null : LoanStatus.fromCode(code);
+    }
+}
@@ -0,0 +1,31 @@
+package org.chandra.dmabackend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Only the SHA-256 of the token is stored, so a leaked table cannot be replayed
+@Entity
+@Table(name = "refresh_tokens")
+@NoArgsConstructor
+@Getter
+@Setter
+public class RefreshToken extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Set when the token is rotated or logged out; a second use means it was stolen
+    private LocalDateTime revokedAt;
+
+}
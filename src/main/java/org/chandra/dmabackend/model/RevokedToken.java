@@ -0,0 +1,24 @@
+package org.chandra.dmabackend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Access tokens revoked before their expiry, by JWT id; purged once they would have expired anyway
+@Entity
+@Table(name = "revoked_tokens")
+@NoArgsConstructor
+@Getter
+@Setter
+public class RevokedToken extends BaseEntity {
+
+    @Column(nullable = false, unique = true, length = 36)
+    private String jti;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+}
@@ -1,6 +1,7 @@
 package org.chandra.dmabackend.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -8,6 +9,7 @@ import lombok.Setter;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserChangeListener.class)
 @NoArgsConstructor
 @Getter
 @Setter
@@ -22,4 +24,18 @@ public class User extends BaseEntity{
     @Column(nullable = false)
     private String passwordHash;
 
+    // Email as last read from or written to the database, so a change can evict the old one
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String persistedEmail;
+
+    String getPersistedEmail() {
+        return persistedEmail;
+    }
+
+    void markEmailPersisted() {
+        this.persistedEmail = email;
+    }
+
 }
@@ -0,0 +1,32 @@
+package org.chandra.dmabackend.model;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.chandra.dmabackend.event.UserChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+// Created through Spring's bean container for Hibernate, so it can publish application events
+public class UserChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostLoad
+    @PostPersist
+    public void onRead(User user) {
+        user.markEmailPersisted();
+    }
+
+    // Carries the email before the update too, since cached credentials are keyed by it
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user.getEmail(), user.getPersistedEmail()));
+        user.markEmailPersisted();
+    }
+}
@@ -0,0 +1,12 @@
+package org.chandra.dmabackend.repository;
+
+import org.chandra.dmabackend.model.EmiSchedule;
+
+import java.util.List;
+
+public interface EmiScheduleBulkRepository {
+
+    // Inserts new (unsaved) rows with one id query and one JDBC batch, assigning their ids
+    void insertAll(List<EmiSchedule> schedule);
+
+}
@@ -0,0 +1,86 @@
+package org.chandra.dmabackend.repository;
+
+import jakarta.persistence.EntityManager;
+import org.chandra.dmabackend.model.EmiSchedule;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EmiScheduleBulkRepositoryImpl implements EmiScheduleBulkRepository {
+
+    // Hibernate's pooled optimizer for emi_schedule_seq (increment by 50) treats each
+    // nextval v as the block v-49..v, so reserving ids the same way never collides with it.
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String NEXT_ID_BLOCKS_SQL =
+            "select nextval('emi_schedule_seq') from generate_series(1, ?)";
+
+    private static final String INSERT_SQL =
+            "insert into emi_schedule (id, loan_id, month_index, due_date, payment_date, opening_balance, " +
+                    "emi_amount, interest_component, principal_component, closing_balance, status) " +
+                    "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public EmiScheduleBulkRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void insertAll(List<EmiSchedule> schedule) {
+
+        if (schedule.isEmpty()) {
+            return;
+        }
+
+        // The owning loan may still be pending in the persistence context
+        entityManager.flush();
+
+        List<Long> ids = reserveIds(schedule.size());
+        for (int i = 0; i < schedule.size(); i++) {
+            schedule.get(i).setId(ids.get(i));
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, schedule, schedule.size(), (ps, e) -> {
+            ps.setLong(1, e.getId());
+            ps.setLong(2, e.getLoan().getId());
+            ps.setInt(3, e.getMonthIndex());
+            ps.setDate(4, Date.valueOf(e.getDueDate()));
+            if (e.getPaymentDate() != null) {
+                ps.setDate(5, Date.valueOf(e.getPaymentDate()));
+            } else {
+                ps.setNull(5, Types.DATE);
+            }
+            ps.setBigDecimal(6, e.getOpeningBalance());
+            ps.setBigDecimal(7, e.getEmiAmount());
+            ps.setBigDecimal(8, e.getInterestComponent());
+            ps.setBigDecimal(9, e.getPrincipalComponent());
+            ps.setBigDecimal(10, e.getClosingBalance());
+            ps.setString(11, e.getStatus().name());
+        });
+    }
+
+    private List<Long> reserveIds(int count) {
+
+        List<Long> ids = new ArrayList<>(count);
+
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+            List<Long> highValues = jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Long.class, blocks);
+
+            for (Long hi : highValues) {
+                // The very first value of a fresh sequence (1) only covers id 1
+                for (long id = Math.max(1, hi - ID_BLOCK_SIZE + 1); id <= hi && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+
+        return ids;
+    }
+}
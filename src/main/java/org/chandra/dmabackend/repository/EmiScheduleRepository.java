@@ -1,18 +1,152 @@
 package org.chandra.dmabackend.repository;
 
+import jakarta.persistence.QueryHint;
+import org.chandra.dmabackend.dto.response.EmiScheduleResponse;
 import org.chandra.dmabackend.model.EmiSchedule;
 import org.chandra.dmabackend.model.EmiScheduleStatus;
 import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.model.LoanStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface EmiScheduleRepository extends JpaRepository<EmiSchedule,Long> {
+public interface EmiScheduleRepository extends JpaRepository<EmiSchedule,Long>, EmiScheduleBulkRepository {
 
     List<EmiSchedule> findByLoanOrderByMonthIndexAsc(Loan loan);
 
+    // Selected straight into the response shape: no entities, no dirty-checking snapshots
+    @Query("""
+            select new org.chandra.dmabackend.dto.response.EmiScheduleResponse(
+                e.monthIndex, e.dueDate, e.openingBalance, e.emiAmount, e.interestComponent,
+                e.principalComponent, e.closingBalance, cast(e.status as String))
+            from EmiSchedule e
+            where e.loan.id = :loanId
+            order by e.monthIndex
+            """)
+    List<EmiScheduleResponse> findResponsesByLoanId(@Param("loanId") Long loanId);
+
+    // Server-side cursor: PostgreSQL sends the rows in batches of the fetch size
+    // instead of all at once, as long as the stream is read inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    @Query("""
+            select new org.chandra.dmabackend.dto.response.EmiScheduleResponse(
+                e.monthIndex, e.dueDate, e.openingBalance, e.emiAmount, e.interestComponent,
+                e.principalComponent, e.closingBalance, cast(e.status as String))
+            from EmiSchedule e
+            where e.loan.id = :loanId
+            order by e.monthIndex
+            """)
+    Stream<EmiScheduleResponse> streamResponsesByLoanId(@Param("loanId") Long loanId);
+
     List<EmiSchedule> findByLoanAndStatusOrderByMonthIndexAsc(Loan loan, EmiScheduleStatus status);
 
+    // Keyset page: index range scan on (loan_id, month_index) starting after the cursor
+    @Query("""
+            select new org.chandra.dmabackend.dto.response.EmiScheduleResponse(
+                e.monthIndex, e.dueDate, e.openingBalance, e.emiAmount, e.interestComponent,
+                e.principalComponent, e.closingBalance, cast(e.status as String))
+            from EmiSchedule e
+            where e.loan.id = :loanId and e.monthIndex > :afterMonthIndex
+              and e.dueDate between :from and :to
+            order by e.monthIndex
+            """)
+    List<EmiScheduleResponse> findResponsePage(@Param("loanId") Long loanId,
+                                               @Param("afterMonthIndex") int afterMonthIndex,
+                                               @Param("from") LocalDate from,
+                                               @Param("to") LocalDate to,
+                                               Limit limit);
+
+    Optional<EmiSchedule> findFirstByLoanAndStatusOrderByMonthIndexAsc(Loan loan, EmiScheduleStatus status);
+
+    // EMIs together with their loans, so ownership of a whole batch is checked from one query
+    @Query("select e from EmiSchedule e join fetch e.loan where e.id in :ids")
+    List<EmiSchedule> findWithLoanByIdIn(@Param("ids") Collection<Long> ids);
+
+    boolean existsByLoanAndStatus(Loan loan, EmiScheduleStatus status);
+
+    Optional<EmiSchedule> findFirstByLoanOrderByMonthIndexDesc(Loan loan);
+
+    @Query("""
+            select min(e.dueDate) from EmiSchedule e
+            where e.status = org.chandra.dmabackend.model.EmiScheduleStatus.PENDING
+              and e.dueDate < :today and e.loan.status in :loanStatuses
+            """)
+    LocalDate findOldestPendingDueDate(@Param("today") LocalDate today,
+                                       @Param("loanStatuses") List<LoanStatus> loanStatuses);
+
+    // One overdue sweep chunk in a single statement:
+    // - claims up to chunkSize PENDING rows of open loans in one hash partition of loan_id
+    //   that fell due before today, in (loan_id, month_index) order, skipping rows another
+    //   worker or request has locked;
+    // - marks them MISSED;
+    // - moves their loans to OVERDUE, shifts the counts from pending to missed, bumps the
+    //   version and points the next EMI at the earliest PENDING row due today or later.
+    // The next-EMI lookup cannot simply take the earliest PENDING row: this statement's
+    // snapshot still shows its own claimed rows, and those of concurrent chunks, as PENDING.
+    // Every past-due row of an open loan is settled by the end of the sweep, so the first
+    // row that is not past due is the right one.
+    // Loan codes: 1 ACTIVE, 2 OVERDUE (see LoanStatus).
+    @Query(value = """
+            with due as (
+                select e.id, e.loan_id
+                from emi_schedule e
+                join loans l on l.id = e.loan_id
+                where e.status = 'PENDING' and e.due_date < :today and l.status in (1, 2)
+                  and mod(hashint8(e.loan_id) & 2147483647, :partitions) = :partition
+                order by e.loan_id, e.month_index
+                limit :chunkSize
+                for update of e skip locked
+            ),
+            missed as (
+                update emi_schedule e
+                set status = 'MISSED'
+                from due
+                where e.id = due.id
+                returning e.loan_id
+            ),
+            counts as (
+                select loan_id, cast(count(*) as int) as missed_now
+                from missed
+                group by loan_id
+            ),
+            swept as (
+                update loans l
+                set missed_emi_count = l.missed_emi_count + c.missed_now,
+                    pending_emi_count = l.pending_emi_count - c.missed_now,
+                    status = case when l.status in (1, 2) then 2 else l.status end,
+                    next_emi_id = n.id,
+                    next_emi_month_index = n.month_index,
+                    next_emi_due_date = n.due_date,
+                    next_emi_amount = n.emi_amount,
+                    version = l.version + 1
+                from counts c
+                left join lateral (
+                    select p.id, p.month_index, p.due_date, p.emi_amount
+                    from emi_schedule p
+                    where p.loan_id = c.loan_id and p.status = 'PENDING' and p.due_date >= :today
+                    order by p.month_index
+                    limit 1
+                ) n on true
+                where l.id = c.loan_id
+                returning l.id, l.user_id, c.missed_now, l.next_emi_id
+            )
+            select id as "loanId", user_id as "userId", missed_now as "missedEmis", next_emi_id as "nextEmiId"
+            from swept
+            """, nativeQuery = true)
+    List<OverdueSweepView> markPastDueMissed(@Param("today") LocalDate today,
+                                             @Param("partition") int partition,
+                                             @Param("partitions") int partitions,
+                                             @Param("chunkSize") int chunkSize);
+
 }
@@ -0,0 +1,24 @@
+package org.chandra.dmabackend.repository;
+
+import org.chandra.dmabackend.model.LoanStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Columns of the loans table needed for the health endpoint, selected without loading the entity
+public record LoanHealthView(
+        Long loanId,
+        Long userId,
+        LoanStatus loanStatus,
+        BigDecimal principalOutstanding,
+        Integer totalEmis,
+        Integer paidEmis,
+        Integer pendingEmis,
+        Integer missedEmis,
+        Long nextEmiId,
+        Integer nextMonthIndex,
+        LocalDate nextDueDate,
+        BigDecimal nextEmiAmount,
+        Boolean foreclosureAllowed
+) {
+}
@@ -1,16 +1,89 @@
 package org.chandra.dmabackend.repository;
 
 import org.chandra.dmabackend.model.Loan;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan,Long> {
 
-    List<Loan> findAllByStatus(String status);
-
     List<Loan> findByUserId(Long userId);
 
+    @Query("select l.version from Loan l where l.id = :loanId and l.user.id = :userId")
+    Optional<Long> findVersionByIdAndUserId(@Param("loanId") Long loanId, @Param("userId") Long userId);
+
+    @Query("select l.user.id from Loan l where l.id = :loanId")
+    Optional<Long> findUserIdById(@Param("loanId") Long loanId);
+
+    @Query("""
+            select new org.chandra.dmabackend.repository.LoanHealthView(
+                l.id, l.user.id, l.status, l.principal,
+                l.totalEmiCount, l.paidEmiCount, l.pendingEmiCount, l.missedEmiCount,
+                l.nextEmiId, l.nextEmiMonthIndex, l.nextEmiDueDate, l.nextEmiAmount,
+                l.foreclosureAllowed)
+            from Loan l
+            where l.id = :loanId
+            """)
+    Optional<LoanHealthView> findHealthById(@Param("loanId") Long loanId);
+
+    @Query("""
+            select l.id as loanId, l.loanName as loanName, l.category as category, l.lender as lender,
+                   l.principal as principalOutstanding, l.status as loanStatus,
+                   l.totalEmiCount as totalEmis, l.paidEmiCount as paidEmis,
+                   l.pendingEmiCount as pendingEmis, l.missedEmiCount as missedEmis,
+                   l.nextEmiId as nextEmiId, l.nextEmiMonthIndex as nextMonthIndex,
+                   l.nextEmiDueDate as nextDueDate, l.nextEmiAmount as nextEmiAmount
+            from Loan l
+            where l.user.id = :userId
+            order by l.id
+            """)
+    List<LoanSummaryView> findSummariesByUserId(@Param("userId") Long userId);
+
+    // Loans created before the EMI counters existed still have the column default
+    @Query("select l.id from Loan l where l.totalEmiCount = 0 and l.id > :afterId order by l.id")
+    List<Long> findIdsWithoutEmiCounts(@Param("afterId") Long afterId, Limit limit);
+
+    // Recounts a range of loans from their stored schedule rows in one statement:
+    // GROUP BY for the counts, LATERAL for the earliest PENDING row.
+    // Only valid when every month is stored (materialized schedules).
+    @Modifying
+    @Query(value = """
+            update loans l
+            set total_emi_count = c.total_emis,
+                paid_emi_count = c.paid_emis,
+                pending_emi_count = c.pending_emis,
+                missed_emi_count = c.missed_emis,
+                next_emi_id = n.id,
+                next_emi_month_index = n.month_index,
+                next_emi_due_date = n.due_date,
+                next_emi_amount = n.emi_amount,
+                version = l.version + 1
+            from (
+                select e.loan_id,
+                       count(*) as total_emis,
+                       count(*) filter (where e.status = 'PAID') as paid_emis,
+                       count(*) filter (where e.status = 'PENDING') as pending_emis,
+                       count(*) filter (where e.status = 'MISSED') as missed_emis
+                from emi_schedule e
+                where e.loan_id between :fromId and :toId
+                group by e.loan_id
+            ) c
+            left join lateral (
+                select p.id, p.month_index, p.due_date, p.emi_amount
+                from emi_schedule p
+                where p.loan_id = c.loan_id and p.status = 'PENDING'
+                order by p.month_index
+                limit 1
+            ) n on true
+            where l.id = c.loan_id and l.total_emi_count = 0
+            """, nativeQuery = true)
+    int backfillEmiCounters(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
 }
@@ -0,0 +1,38 @@
+package org.chandra.dmabackend.repository;
+
+import org.chandra.dmabackend.model.LoanStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Columns of the loans table needed for the portfolio summary
+public interface LoanSummaryView {
+
+    Long getLoanId();
+
+    String getLoanName();
+
+    String getCategory();
+
+    String getLender();
+
+    BigDecimal getPrincipalOutstanding();
+
+    LoanStatus getLoanStatus();
+
+    Integer getTotalEmis();
+
+    Integer getPaidEmis();
+
+    Integer getPendingEmis();
+
+    Integer getMissedEmis();
+
+    Long getNextEmiId();
+
+    Integer getNextMonthIndex();
+
+    LocalDate getNextDueDate();
+
+    BigDecimal getNextEmiAmount();
+}
@@ -0,0 +1,14 @@
+package org.chandra.dmabackend.repository;
+
+// One loan touched by an overdue sweep chunk, as returned by EmiScheduleRepository.markPastDueMissed
+public interface OverdueSweepView {
+
+    Long getLoanId();
+
+    Long getUserId();
+
+    Integer getMissedEmis();
+
+    // Null when the loan has no stored PENDING row left
+    Long getNextEmiId();
+}
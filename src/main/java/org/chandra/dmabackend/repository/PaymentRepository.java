@@ -1,15 +1,77 @@
 package org.chandra.dmabackend.repository;
 
+import jakarta.persistence.QueryHint;
+import org.chandra.dmabackend.dto.response.RepaymentHistoryResponse;
 import org.chandra.dmabackend.model.Loan;
 import org.chandra.dmabackend.model.Payment;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     List<Payment> findByLoanOrderByPaymentDateAsc(Loan loan);
 
+    // Server-side cursor, read inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    @Query("""
+            select new org.chandra.dmabackend.dto.response.RepaymentHistoryResponse(
+                p.id, p.paymentDate, p.amountPaid, p.allocatedToInterest, p.allocatedToPrincipal,
+                p.outstandingAfterPayment, cast(p.paymentType as String), p.remarks)
+            from Payment p
+            where p.loan.id = :loanId
+            order by p.paymentDate
+            """)
+    Stream<RepaymentHistoryResponse> streamResponsesByLoanId(@Param("loanId") Long loanId);
+
     List<Payment> findByLoan(Loan loan);
 
+    // Selected straight into the response shape: no entities, no dirty-checking snapshots
+    @Query("""
+            select new org.chandra.dmabackend.dto.response.RepaymentHistoryResponse(
+                p.id, p.paymentDate, p.amountPaid, p.allocatedToInterest, p.allocatedToPrincipal,
+                p.outstandingAfterPayment, cast(p.paymentType as String), p.remarks)
+            from Payment p
+            where p.loan.id = :loanId
+            order by p.paymentDate
+            """)
+    List<RepaymentHistoryResponse> findResponsesByLoanId(@Param("loanId") Long loanId);
+
+    // Keyset pages: index range scans on (loan_id, payment_date, id)
+    @Query("""
+            select new org.chandra.dmabackend.dto.response.RepaymentHistoryResponse(
+                p.id, p.paymentDate, p.amountPaid, p.allocatedToInterest, p.allocatedToPrincipal,
+                p.outstandingAfterPayment, cast(p.paymentType as String), p.remarks)
+            from Payment p
+            where p.loan.id = :loanId and p.paymentDate between :from and :to
+            order by p.paymentDate, p.id
+            """)
+    List<RepaymentHistoryResponse> findFirstResponsePage(@Param("loanId") Long loanId,
+                                                         @Param("from") LocalDate from,
+                                                         @Param("to") LocalDate to,
+                                                         Limit limit);
+
+    @Query("""
+            select new org.chandra.dmabackend.dto.response.RepaymentHistoryResponse(
+                p.id, p.paymentDate, p.amountPaid, p.allocatedToInterest, p.allocatedToPrincipal,
+                p.outstandingAfterPayment, cast(p.paymentType as String), p.remarks)
+            from Payment p
+            where p.loan.id = :loanId and p.paymentDate between :from and :to
+              and (p.paymentDate, p.id) > (:afterDate, :afterId)
+            order by p.paymentDate, p.id
+            """)
+    List<RepaymentHistoryResponse> findResponsePageAfter(@Param("loanId") Long loanId,
+                                                         @Param("afterDate") LocalDate afterDate,
+                                                         @Param("afterId") Long afterId,
+                                                         @Param("from") LocalDate from,
+                                                         @Param("to") LocalDate to,
+                                                         Limit limit);
+
 }
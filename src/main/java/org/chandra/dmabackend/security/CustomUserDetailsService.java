@@ -1,33 +1,69 @@
 package org.chandra.dmabackend.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.chandra.dmabackend.event.UserChangedEvent;
 import org.chandra.dmabackend.model.User;
 import org.chandra.dmabackend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.Collections;
+import java.time.Duration;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    // Loaded users by email; dropped when the user row changes, and after the TTL in any case
+    private final Cache<String, UserDetails> userCache;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Value("${security.user-cache.max-size:10000}") long maxSize,
+                                    @Value("${security.user-cache.ttl:10m}") Duration ttl,
+                                    MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+
+        this.userCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, userCache, "security.users");
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
 
+        // Unknown emails throw from the loader and are not cached
+        return userCache.get(email, this::loadUser);
+    }
+
+    // After commit, so that a concurrent load cannot cache the old password hash again
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        userCache.invalidate(event.email());
+        if (event.previousEmail() != null) {
+            userCache.invalidate(event.previousEmail());
+        }
+    }
+
+    private UserDetails loadUser(String email) {
+
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
 
-        return new org.springframework.security.core.userdetails.User(
+        return new AuthenticatedUser(
+                user.getId(),
                 user.getEmail(),
-                user.getPasswordHash(),
-                Collections.emptyList() // no roles yet
+                user.getPasswordHash()
         );
     }
 }
@@ -18,10 +18,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService revocationService;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+                                   CustomUserDetailsService userDetailsService,
+                                   TokenRevocationService revocationService) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.revocationService = revocationService;
     }
 
     @Override
@@ -32,25 +36,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String authHeader = request.getHeader("Authorization");
 
-        String token = null;
-        String email = null;
+        VerifiedToken token = null;
 
-        // Extract token
+        // Verify token (signature and expiry) once; invalid token → do nothing
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            try {
-                email = jwtUtil.extractEmail(token);
-            } catch (Exception ignored) {
-                // Token extraction failed → invalid token → do nothing
-            }
+            token = jwtUtil.verify(authHeader.substring(7));
+        }
+
+        // Revoked tokens are treated like invalid ones
+        if (token != null && token.id() != null && revocationService.isRevoked(token.id())) {
+            token = null;
         }
 
-        // If email extracted and context is empty
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // If token verified and context is empty
+        if (token != null && token.subject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+
+            String email = token.subject();
+            Long userId = token.userId();
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            // Tokens issued before the user id claim existed still need the lookup
+            UserDetails userDetails = userId != null
+                    ? new AuthenticatedUser(userId, email, null)
+                    : userDetailsService.loadUserByUsername(email);
 
-            if (jwtUtil.isTokenValid(token, userDetails)) {
+            if (email.equals(userDetails.getUsername())) {
 
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
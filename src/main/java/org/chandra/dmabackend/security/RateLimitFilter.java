@@ -0,0 +1,225 @@
+package org.chandra.dmabackend.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.chandra.dmabackend.dto.response.ErrorResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Token-bucket limits for the endpoints that are expensive or write money:
+// /api/auth/** per client IP and per email, /api/repayment/** writes per client IP.
+// Runs before JwtAuthenticationFilter, so rejected requests cost no token verification.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Login and register bodies are tiny; anything bigger is only limited by IP
+    private static final int MAX_INSPECTED_BODY = 8 * 1024;
+
+    private final boolean enabled;
+    private final TokenBucketLimiter authByIp;
+    private final TokenBucketLimiter authByEmail;
+    private final TokenBucketLimiter repaymentByIp;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(@Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.auth.capacity:10}") int authCapacity,
+                           @Value("${rate-limit.auth.refill-period:1m}") Duration authRefillPeriod,
+                           @Value("${rate-limit.repayment.capacity:30}") int repaymentCapacity,
+                           @Value("${rate-limit.repayment.refill-period:1m}") Duration repaymentRefillPeriod,
+                           @Value("${rate-limit.stripes:64}") int stripes,
+                           @Value("${rate-limit.max-keys:100000}") int maxKeys,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.authByIp = new TokenBucketLimiter(authCapacity, authRefillPeriod, stripes, maxKeys);
+        this.authByEmail = new TokenBucketLimiter(authCapacity, authRefillPeriod, stripes, maxKeys);
+        this.repaymentByIp = new TokenBucketLimiter(repaymentCapacity, repaymentRefillPeriod, stripes, maxKeys);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return !path.startsWith("/api/auth/") && !(path.startsWith("/api/repayment/") && isWrite(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String clientIp = request.getRemoteAddr();
+
+        if (request.getRequestURI().startsWith("/api/repayment/")) {
+            if (reject(repaymentByIp.tryAcquire(clientIp), "repayment", "ip", response)) {
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (reject(authByIp.tryAcquire(clientIp), "auth", "ip", response)) {
+            return;
+        }
+
+        // The email is in the JSON body, so read it here and replay it to the controller
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String email = cachedRequest.email(objectMapper);
+
+        if (email != null && reject(authByEmail.tryAcquire(email), "auth", "email", response)) {
+            return;
+        }
+
+        filterChain.doFilter(cachedRequest, response);
+    }
+
+    private boolean reject(long waitNanos, String route, String key, HttpServletResponse response) throws IOException {
+
+        if (waitNanos == 0) {
+            return false;
+        }
+
+        meterRegistry.counter("rate_limit.rejected", "route", route, "key", key).increment();
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                "TOO_MANY_REQUESTS",
+                "Rate limit exceeded, please retry later",
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                LocalDateTime.now()
+        );
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+
+        return true;
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method) && !HttpMethod.OPTIONS.matches(method);
+    }
+
+    // Reads up to MAX_INSPECTED_BODY bytes once and serves them again, followed by any unread rest
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] head;
+        private final boolean complete;
+        private final ServletInputStream body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            ServletInputStream original = request.getInputStream();
+            this.head = original.readNBytes(MAX_INSPECTED_BODY + 1);
+            this.complete = head.length <= MAX_INSPECTED_BODY;
+            this.body = new HeadThenRestInputStream(head, original);
+        }
+
+        String email(ObjectMapper objectMapper) {
+            if (!complete || head.length == 0) {
+                return null;
+            }
+            try {
+                JsonNode email = objectMapper.readTree(head).get("email");
+                return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+            } catch (IOException malformed) {
+                // Left to the controller to reject
+                return null;
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+
+    // The cached head first, then the container's stream, which also answers isFinished,
+    // isReady and setReadListener once the head is used up
+    private static final class HeadThenRestInputStream extends ServletInputStream {
+
+        private final byte[] head;
+        private final ServletInputStream rest;
+        private int position;
+
+        HeadThenRestInputStream(byte[] head, ServletInputStream rest) {
+            this.head = head;
+            this.rest = rest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return position < head.length ? head[position++] & 0xff : rest.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position < head.length) {
+                int n = Math.min(len, head.length - position);
+                System.arraycopy(head, position, b, off, n);
+                position += n;
+                return n;
+            }
+            return rest.read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return position < head.length ? head.length - position : rest.available();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return position >= head.length && rest.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return position < head.length || rest.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            rest.setReadListener(readListener);
+        }
+    }
+}
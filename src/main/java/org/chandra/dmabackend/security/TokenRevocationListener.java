@@ -0,0 +1,116 @@
+package org.chandra.dmabackend.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+// Adds revocations made by other instances to this instance's filter as they commit.
+// Listens on a connection of its own rather than a pooled one, which it would hold for good.
+// Notifications sent while it is not connected are lost, so every (re)connect rebuilds the filter.
+@Slf4j
+@Component
+public class TokenRevocationListener implements SmartLifecycle {
+
+    // How long one wait for notifications blocks, which bounds how long stop() takes
+    private static final int WAIT_MILLIS = 500;
+
+    private final TokenRevocationService revocationService;
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean enabled;
+    private final Duration reconnectDelay;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public TokenRevocationListener(TokenRevocationService revocationService,
+                                   DataSourceProperties dataSourceProperties,
+                                   @Value("${jwt.revocation.listen:true}") boolean enabled,
+                                   @Value("${jwt.revocation.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.revocationService = revocationService;
+        this.dataSourceProperties = dataSourceProperties;
+        this.enabled = enabled;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listen, "token-revocation-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(WAIT_MILLIS * 4L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("listen " + TokenRevocationService.CHANNEL);
+                }
+
+                // Picks up whatever was revoked while this instance was not listening
+                revocationService.refresh();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(WAIT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            revocationService.publish(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Revocation listener lost its connection; reconnecting in {}", reconnectDelay, e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(reconnectDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.chandra.dmabackend.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.chandra.dmabackend.model.RevokedToken;
+import org.chandra.dmabackend.repository.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Revoked access tokens by JWT id. Every request asks the in-memory Bloom filter first;
+// the database is only queried when the filter reports a possible hit.
+// Each revocation is also sent on the revoked_tokens channel when its transaction commits,
+// and TokenRevocationListener adds it to the filter of every other instance.
+// The filter is rebuilt periodically, which drops expired ids.
+@Slf4j
+@Component
+public class TokenRevocationService {
+
+    static final String CHANNEL = "revoked_tokens";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter revoked;
+
+    // Filter being rebuilt, so that revocations during a rebuild are not lost
+    private volatile BloomFilter rebuilding;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  JdbcTemplate jdbcTemplate,
+                                  @Value("${jwt.revocation.expected-insertions:100000}") long expectedInsertions,
+                                  @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.revoked = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    public boolean isRevoked(String jti) {
+        return revoked.mightContain(jti) && revokedTokenRepository.existsByJti(jti);
+    }
+
+    public void revoke(String jti, LocalDateTime expiresAt) {
+
+        if (!revokedTokenRepository.existsByJti(jti)) {
+            RevokedToken token = new RevokedToken();
+            token.setJti(jti);
+            token.setExpiresAt(expiresAt);
+            revokedTokenRepository.save(token);
+        }
+
+        // Joins the caller's transaction, so other instances are told only once it commits
+        jdbcTemplate.queryForList("select pg_notify(?, ?)", CHANNEL, jti);
+
+        // Published once the row is visible, so a rebuild either reads it or sees this put
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(jti);
+                }
+            });
+        } else {
+            publish(jti);
+        }
+    }
+
+    // The filter being built is read before the live one: if no rebuild is running here,
+    // a later one reads the committed row, and if one has already swapped, revoked is its filter
+    void publish(String jti) {
+
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(jti);
+        }
+
+        revoked.put(jti);
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval:5m}",
+            initialDelayString = "${jwt.revocation.refresh-interval:5m}")
+    public void refresh() {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        BloomFilter next = new BloomFilter(expectedInsertions, falsePositiveRate);
+        rebuilding = next;
+        try {
+            Integer purged = transactionTemplate.execute(status -> revokedTokenRepository.deleteExpired(now));
+
+            List<String> active = revokedTokenRepository.findActiveJtis(now);
+            active.forEach(next::put);
+
+            revoked = next;
+
+            log.debug("Revocation filter rebuilt with {} ids, {} expired ids purged", active.size(), purged);
+        } finally {
+            rebuilding = null;
+        }
+    }
+}
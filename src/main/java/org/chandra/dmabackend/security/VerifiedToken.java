@@ -0,0 +1,8 @@
+package org.chandra.dmabackend.security;
+
+import java.time.Instant;
+
+// The claims of a verified access token that requests need; immutable, so one cached
+// instance can be handed to every request presenting the token
+public record VerifiedToken(String subject, Long userId, String id, Instant expiresAt) {
+}
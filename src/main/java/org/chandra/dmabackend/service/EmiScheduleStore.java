@@ -0,0 +1,33 @@
+package org.chandra.dmabackend.service;
+
+import org.chandra.dmabackend.dto.response.EmiScheduleResponse;
+import org.chandra.dmabackend.model.EmiSchedule;
+import org.chandra.dmabackend.model.Loan;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface EmiScheduleStore {
+
+    // Returns every month of the new schedule, including any that are not stored
+    List<EmiSchedule> initialize(Loan loan);
+
+    List<EmiSchedule> loadSchedule(Loan loan);
+
+    // The same months as loadSchedule, already in response shape
+    List<EmiScheduleResponse> loadScheduleResponses(Loan loan);
+
+    // Up to limit months after afterMonthIndex with a due date in [from, to], in month order
+    List<EmiScheduleResponse> loadSchedulePage(Loan loan, int afterMonthIndex, LocalDate from, LocalDate to, int limit);
+
+    // Same months as loadSchedule, handed over one at a time; must run inside a transaction
+    void streamSchedule(Loan loan, Consumer<EmiScheduleResponse> action);
+
+    void afterSettled(Loan loan, EmiSchedule settled);
+
+    int reamortize(Loan loan);
+
+    int foreclose(Loan loan);
+
+}
@@ -0,0 +1,16 @@
+package org.chandra.dmabackend.service;
+
+import java.util.function.IntConsumer;
+
+// Coordinates background jobs across the instances sharing one database.
+// Jobs must be safe to repeat: a partition released by one runner can be claimed again later.
+public interface JobCoordinator {
+
+    // Runs work unless another runner holds the job; returns false when it was skipped
+    boolean runExclusive(String job, Runnable work);
+
+    // Offers every partition of the job once, starting at a random one, and runs work for
+    // each partition no other runner holds at that moment; returns how many ran here
+    int runPartitions(String job, int partitions, IntConsumer work);
+
+}
@@ -1,5 +1,6 @@
 package org.chandra.dmabackend.service;
 
+import org.chandra.dmabackend.dto.KeysetPage;
 import org.chandra.dmabackend.dto.request.ExistingLoanRequest;
 import org.chandra.dmabackend.dto.request.NewLoanRequest;
 import org.chandra.dmabackend.dto.response.EmiScheduleResponse;
@@ -7,7 +8,9 @@ import org.chandra.dmabackend.dto.response.LoanResponse;
 import org.chandra.dmabackend.model.EmiSchedule;
 import org.chandra.dmabackend.model.Loan;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface LoanService {
 
@@ -17,4 +20,9 @@ public interface LoanService {
 
     List<EmiScheduleResponse> getSchedule(Long loanId, Long userId);
 
+    KeysetPage<EmiScheduleResponse> getSchedulePage(Long loanId, Long userId, String cursor,
+                                                    LocalDate from, LocalDate to, Integer limit);
+
+    void streamSchedule(Long loanId, Long userId, Consumer<EmiScheduleResponse> sink);
+
 }
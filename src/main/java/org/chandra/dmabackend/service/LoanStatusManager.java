@@ -2,7 +2,9 @@ package org.chandra.dmabackend.service;
 
 import org.chandra.dmabackend.dto.response.LoanHealthResponse;
 import org.chandra.dmabackend.dto.response.LoanSummaryResponse;
+import org.chandra.dmabackend.model.EmiSchedule;
 import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.model.LoanStatus;
 
 import java.util.List;
 
@@ -10,9 +12,11 @@ public interface LoanStatusManager {
 
     void updateLoanStatus(Loan loan);
 
+    void recountEmis(Loan loan, List<EmiSchedule> schedule);
+
     LoanHealthResponse evaluateLoanHealth(Long loanId, Long userId);
 
-    String evaluateLoanStatus(Long loanId);
+    LoanStatus evaluateLoanStatus(Long loanId);
 
     List<LoanSummaryResponse> getUserLoanSummaries(Long userId);
 }
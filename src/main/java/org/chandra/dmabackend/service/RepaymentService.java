@@ -1,21 +1,31 @@
 package org.chandra.dmabackend.service;
 
+import org.chandra.dmabackend.dto.KeysetPage;
+import org.chandra.dmabackend.dto.request.EmiPaymentItem;
 import org.chandra.dmabackend.dto.response.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface RepaymentService {
 
     PayEmiResponse payEmi(Long emiId, Long userId, BigDecimal amountPaid);
 
+    BatchEmiPaymentResponse payEmis(Long userId, List<EmiPaymentItem> items);
+
     PartPaymentResponse partPayment(Long loanId, Long userId, BigDecimal amountPaid);
 
     ForeclosureResponse forecloseLoan(Long loanId, Long userId, BigDecimal amountPaid);
 
     List<RepaymentHistoryResponse> getRepaymentHistory(Long loanId, Long userId);
 
+    KeysetPage<RepaymentHistoryResponse> getRepaymentHistoryPage(Long loanId, Long userId, String cursor,
+                                                                 LocalDate from, LocalDate to, Integer limit);
+
+    void streamRepaymentHistory(Long loanId, Long userId, Consumer<RepaymentHistoryResponse> sink);
+
     MarkPaidResponse markEmiPaid(Long emiId, Long userId, LocalDate actualPaymentDate);
 
     MarkMissedResponse markEmiMissed(Long emiId, Long userId);
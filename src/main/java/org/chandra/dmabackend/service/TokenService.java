@@ -0,0 +1,14 @@
+package org.chandra.dmabackend.service;
+
+import org.chandra.dmabackend.dto.response.LoginResponse;
+import org.chandra.dmabackend.model.User;
+
+public interface TokenService {
+
+    LoginResponse issueTokens(User user);
+
+    LoginResponse refresh(String refreshToken);
+
+    void logout(String refreshToken, String accessToken);
+
+}
@@ -5,10 +5,12 @@ import org.chandra.dmabackend.dto.request.RegisterRequest;
 import org.chandra.dmabackend.dto.response.LoginResponse;
 import org.chandra.dmabackend.dto.response.RegisterResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface UserService {
 
-    RegisterResponse register(RegisterRequest request);
+    CompletableFuture<RegisterResponse> register(RegisterRequest request);
 
-    LoginResponse login(LoginRequest request);
+    CompletableFuture<LoginResponse> login(LoginRequest request);
 
 }
@@ -0,0 +1,129 @@
+package org.chandra.dmabackend.service.impl;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.chandra.dmabackend.service.JobCoordinator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+// PostgreSQL session-level advisory locks, keyed by (job name hash, partition).
+// The lock lives on one pooled connection that is held while the work runs, so a runner
+// that dies or loses its connection releases its jobs without any lease to expire.
+// The work itself runs on other connections, in its own transactions, so callers must not
+// hold a transaction: JdbcTemplate would otherwise take the lock on the transaction's connection.
+// While a job runs it holds two connections, the lock connection and the one its work uses.
+@Slf4j
+@Service
+public class AdvisoryLockJobCoordinator implements JobCoordinator {
+
+    // Partition key for jobs that are not partitioned
+    private static final int WHOLE_JOB = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AdvisoryLockJobCoordinator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean runExclusive(String job, Runnable work) {
+        requireNoTransaction(job);
+        return Boolean.TRUE.equals(jdbcTemplate.execute(
+                (Connection connection) -> runLocked(connection, job, WHOLE_JOB, work)));
+    }
+
+    @Override
+    public int runPartitions(String job, int partitions, IntConsumer work) {
+
+        requireNoTransaction(job);
+
+        Integer ran = jdbcTemplate.execute((Connection connection) -> {
+            int count = 0;
+            int first = ThreadLocalRandom.current().nextInt(partitions);
+            for (int i = 0; i < partitions; i++) {
+                int partition = (first + i) % partitions;
+                if (runLocked(connection, job, partition, () -> work.accept(partition))) {
+                    count++;
+                }
+            }
+            return count;
+        });
+
+        return ran == null ? 0 : ran;
+    }
+
+    private boolean runLocked(Connection connection, String job, int partition, Runnable work)
+            throws SQLException {
+
+        // String.hashCode is fixed by the language spec, so every instance derives the same key
+        int jobKey = job.hashCode();
+
+        if (!advisoryLock(connection, "select pg_try_advisory_lock(?, ?)", jobKey, partition)) {
+            log.debug("Job {} partition {} is held by another runner", job, partition);
+            return false;
+        }
+
+        try {
+            work.run();
+            return true;
+        } finally {
+            unlock(connection, job, jobKey, partition);
+        }
+    }
+
+    // A lock left behind would stay with the pooled connection for as long as it lives,
+    // so when the unlock fails the connection is closed, which ends the session and its locks
+    private void unlock(Connection connection, String job, int jobKey, int partition) {
+        try {
+            if (!advisoryLock(connection, "select pg_advisory_unlock(?, ?)", jobKey, partition)) {
+                log.warn("Job {} partition {} was not locked on release", job, partition);
+            }
+        } catch (SQLException e) {
+            log.warn("Job {} partition {} could not be unlocked; closing its connection", job, partition, e);
+            discard(connection);
+        }
+    }
+
+    // Hikari only drops connections on its own for connection-level SQL states, so it is told
+    // to evict this one; other pools get the physical connection aborted
+    private void discard(Connection connection) {
+        Connection pooled = connection instanceof ConnectionProxy proxy ? proxy.getTargetConnection() : connection;
+        try {
+            DataSource dataSource = jdbcTemplate.getDataSource();
+            if (dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)) {
+                dataSource.unwrap(HikariDataSource.class).evictConnection(pooled);
+            } else {
+                pooled.abort(Runnable::run);
+            }
+        } catch (SQLException e) {
+            log.warn("Could not close a connection holding advisory locks", e);
+        }
+    }
+
+    private static void requireNoTransaction(String job) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Job " + job + " must be started outside a transaction");
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql, int jobKey, int partition)
+            throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, jobKey);
+            ps.setInt(2, partition);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
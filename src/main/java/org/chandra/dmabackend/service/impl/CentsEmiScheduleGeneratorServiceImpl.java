@@ -0,0 +1,163 @@
+package org.chandra.dmabackend.service.impl;
+
+import org.chandra.dmabackend.dto.AmortizationTable;
+import org.chandra.dmabackend.model.EmiSchedule;
+import org.chandra.dmabackend.model.EmiScheduleStatus;
+import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.service.EmiBreakdownService;
+import org.chandra.dmabackend.service.EmiScheduleGeneratorService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@ConditionalOnProperty(name = "emi.schedule.engine", havingValue = "cents")
+public class CentsEmiScheduleGeneratorServiceImpl implements EmiScheduleGeneratorService {
+
+    // interest (cents) = opening (cents) * rate (basis points) / (100 * 100 * 12)
+    private static final long RATE_DIVISOR = 120_000L;
+
+    private static final MathContext MC = new MathContext(34, RoundingMode.HALF_UP);
+
+    // Used when the loan terms cannot be represented in whole cents
+    private final EmiScheduleGeneratorService bigDecimalEngine;
+
+    public CentsEmiScheduleGeneratorServiceImpl(EmiBreakdownService emiBreakdownService) {
+        this.bigDecimalEngine = new EmiScheduleGeneratorServiceImpl(emiBreakdownService);
+    }
+
+    @Override
+    public List<EmiSchedule> generateSchedule(Loan loan) {
+
+        AmortizationTable table = amortize(
+                loan.getPrincipal(),
+                loan.getInterestRate(),
+                loan.getEmiAmount(),
+                loan.getTenureMonths()
+        );
+
+        if (table == null) {
+            return bigDecimalEngine.generateSchedule(loan);
+        }
+
+        return toEntities(loan, table);
+    }
+
+    // Returns null when the inputs are invalid, have more than 2 decimals or overflow a long,
+    // so that callers can defer to the BigDecimal engine (and its validation messages).
+    public AmortizationTable amortize(BigDecimal principal,
+                                      BigDecimal annualInterestRate,
+                                      BigDecimal emiAmount,
+                                      Integer tenureMonths) {
+
+        Long principalCents = toCents(principal);
+        Long rateBps = toCents(annualInterestRate);
+        Long emiCents = toCents(emiAmount);
+
+        if (tenureMonths == null || principalCents == null || rateBps == null || emiCents == null) {
+            return null;
+        }
+
+        if (principalCents <= 0 || rateBps < 0 || emiCents <= 0) {
+            return null;
+        }
+
+        AmortizationTable table = new AmortizationTable(Math.max(tenureMonths, 0));
+        long opening = principalCents;
+
+        try {
+            for (int i = 1; i <= tenureMonths; i++) {
+
+                long interest = monthlyInterest(opening, rateBps, annualInterestRate);
+                long principalPart = Math.subtractExact(emiCents, interest);
+
+                long closing = Math.subtractExact(opening, principalPart);
+                if (closing < 0) {
+                    closing = 0;
+                }
+
+                table.addRow(opening, interest, principalPart, closing);
+
+                opening = closing;
+                if (closing <= 0) {
+                    break;
+                }
+            }
+        } catch (ArithmeticException overflow) {
+            return null;
+        }
+
+        return table;
+    }
+
+    private List<EmiSchedule> toEntities(Loan loan, AmortizationTable table) {
+
+        long[] opening = table.getOpeningBalance();
+        long[] interest = table.getInterestComponent();
+        long[] principal = table.getPrincipalComponent();
+        long[] closing = table.getClosingBalance();
+
+        List<EmiSchedule> emiSchedule = new ArrayList<>(table.getRows());
+        LocalDate dueDate = loan.getEmiStartDate();
+
+        for (int i = 0; i < table.getRows(); i++) {
+
+            EmiSchedule schedule = new EmiSchedule();
+            schedule.setLoan(loan);
+            schedule.setMonthIndex(i + 1);
+            schedule.setDueDate(dueDate);
+            schedule.setOpeningBalance(i == 0 ? loan.getPrincipal() : BigDecimal.valueOf(opening[i], 2));
+            schedule.setEmiAmount(loan.getEmiAmount());
+            schedule.setInterestComponent(BigDecimal.valueOf(interest[i], 2));
+            schedule.setPrincipalComponent(BigDecimal.valueOf(principal[i], 2));
+            schedule.setClosingBalance(BigDecimal.valueOf(closing[i], 2));
+            schedule.setStatus(EmiScheduleStatus.PENDING);
+
+            emiSchedule.add(schedule);
+
+            dueDate = dueDate.plusMonths(1);
+        }
+
+        return emiSchedule;
+    }
+
+    private static long monthlyInterest(long openingCents, long rateBps, BigDecimal annualInterestRate) {
+
+        long numerator = Math.multiplyExact(openingCents, rateBps);
+        long quotient = numerator / RATE_DIVISOR;
+        long twiceRemainder = (numerator % RATE_DIVISOR) * 2;
+
+        if (twiceRemainder > RATE_DIVISOR) {
+            return quotient + 1;
+        }
+        if (twiceRemainder < RATE_DIVISOR) {
+            return quotient;
+        }
+
+        // Exact half-cent: the BigDecimal engine rounds the monthly rate to 34 places first,
+        // which can leave the product just below the tie, so use its arithmetic for this row.
+        BigDecimal monthlyRate = annualInterestRate.divide(BigDecimal.valueOf(1200), 34, RoundingMode.HALF_UP);
+        return BigDecimal.valueOf(openingCents, 2)
+                .multiply(monthlyRate, MC)
+                .setScale(2, RoundingMode.HALF_UP)
+                .movePointRight(2)
+                .longValueExact();
+    }
+
+    private static Long toCents(BigDecimal value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.movePointRight(2).longValueExact();
+        } catch (ArithmeticException notWholeCents) {
+            return null;
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package org.chandra.dmabackend.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.chandra.dmabackend.service.EmiCalculationService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class EmiCalculationServiceImpl implements EmiCalculationService {
@@ -13,6 +22,45 @@ public class EmiCalculationServiceImpl implements EmiCalculationService {
     // Use high precision for internal EMI calculations
     private static final MathContext MC = new MathContext(34, RoundingMode.HALF_UP);
 
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+    private static final BigDecimal TWELVE = new BigDecimal("12");
+
+    // Compound factors for configured common rate/tenure pairs, built once at startup
+    private final Map<FactorKey, CompoundFactor> precomputedFactors;
+
+    // Bounded cache for every other rate/tenure pair seen in traffic
+    private final Cache<FactorKey, CompoundFactor> factorCache;
+
+    private final Counter precomputedHits;
+
+    public EmiCalculationServiceImpl(
+            @Value("${emi.factor-cache.max-size:1000}") long maxSize,
+            @Value("${emi.factor-cache.precomputed-rates:}") List<BigDecimal> precomputedRates,
+            @Value("${emi.factor-cache.precomputed-tenures:}") List<Integer> precomputedTenures,
+            MeterRegistry meterRegistry
+    ) {
+        Map<FactorKey, CompoundFactor> table = new HashMap<>();
+        for (BigDecimal rate : precomputedRates) {
+            for (Integer tenure : precomputedTenures) {
+                if (rate.compareTo(BigDecimal.ZERO) > 0 && tenure > 0) {
+                    FactorKey key = FactorKey.of(rate, tenure);
+                    table.put(key, computeFactor(key));
+                }
+            }
+        }
+        this.precomputedFactors = Map.copyOf(table);
+
+        this.factorCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, factorCache, "emi.compound-factors");
+        this.precomputedHits = Counter.builder("emi.compound-factors.precomputed.hits")
+                .description("EMI calculations served from the precomputed compound-factor table")
+                .register(meterRegistry);
+    }
+
     @Override
     public BigDecimal calculateEmi(BigDecimal principal,
                                    BigDecimal annualInterestRate,
@@ -41,33 +89,61 @@ public class EmiCalculationServiceImpl implements EmiCalculationService {
         //
         // monthlyRate = R / (12 * 100)
         // EMI = P * r * (1+r)^n / ((1+r)^n - 1)
+        //
+        // r, (1+r)^n and (1+r)^n - 1 only depend on (R, n) and are memoized.
+
+        CompoundFactor factor = compoundFactor(FactorKey.of(annualInterestRate, tenureMonths));
+
+        // numerator = P * r * (1+r)^n
+        BigDecimal numerator = principal
+                .multiply(factor.monthlyRate(), MC)
+                .multiply(factor.pow(), MC);
+
+        // EMI final = numerator / denominator
+        BigDecimal emi = numerator.divide(factor.denominator(), MC);
+
+        // Round off to 2 decimals for storage
+        return emi.setScale(2, RoundingMode.HALF_UP);
+    }
 
-        BigDecimal hundred = new BigDecimal("100");
-        BigDecimal twelve = new BigDecimal("12");
+    private CompoundFactor compoundFactor(FactorKey key) {
+
+        CompoundFactor precomputed = precomputedFactors.get(key);
+        if (precomputed != null) {
+            precomputedHits.increment();
+            return precomputed;
+        }
+
+        return factorCache.get(key, EmiCalculationServiceImpl::computeFactor);
+    }
+
+    private static CompoundFactor computeFactor(FactorKey key) {
 
         // Convert annual interest rate → monthly decimal interest rate
-        BigDecimal monthlyRate = annualInterestRate
-                .divide(hundred, MC)
-                .divide(twelve, MC);
+        BigDecimal monthlyRate = key.annualRate()
+                .divide(HUNDRED, MC)
+                .divide(TWELVE, MC);
 
         // (1 + r)
         BigDecimal onePlusR = BigDecimal.ONE.add(monthlyRate, MC);
 
         // (1 + r)^n
-        BigDecimal pow = onePlusR.pow(tenureMonths, MC);
-
-        // numerator = P * r * (1+r)^n
-        BigDecimal numerator = principal
-                .multiply(monthlyRate, MC)
-                .multiply(pow, MC);
+        BigDecimal pow = onePlusR.pow(key.tenureMonths(), MC);
 
         // denominator = (1+r)^n - 1
         BigDecimal denominator = pow.subtract(BigDecimal.ONE, MC);
 
-        // EMI final = numerator / denominator
-        BigDecimal emi = numerator.divide(denominator, MC);
+        return new CompoundFactor(monthlyRate, pow, denominator);
+    }
 
-        // Round off to 2 decimals for storage
-        return emi.setScale(2, RoundingMode.HALF_UP);
+    // 8.5 and 8.50 produce the same factors, so the rate is normalized before use as a key
+    private record FactorKey(BigDecimal annualRate, int tenureMonths) {
+
+        static FactorKey of(BigDecimal annualRate, int tenureMonths) {
+            return new FactorKey(annualRate.stripTrailingZeros(), tenureMonths);
+        }
+    }
+
+    private record CompoundFactor(BigDecimal monthlyRate, BigDecimal pow, BigDecimal denominator) {
     }
 }
@@ -6,6 +6,7 @@ import org.chandra.dmabackend.model.EmiScheduleStatus;
 import org.chandra.dmabackend.model.Loan;
 import org.chandra.dmabackend.service.EmiBreakdownService;
 import org.chandra.dmabackend.service.EmiScheduleGeneratorService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -15,6 +16,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Service
+@ConditionalOnProperty(name = "emi.schedule.engine", havingValue = "bigdecimal", matchIfMissing = true)
 public class EmiScheduleGeneratorServiceImpl implements EmiScheduleGeneratorService {
 
     private final EmiBreakdownService emiBreakdownService;
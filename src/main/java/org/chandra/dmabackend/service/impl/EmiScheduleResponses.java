@@ -0,0 +1,26 @@
+package org.chandra.dmabackend.service.impl;
+
+import org.chandra.dmabackend.dto.response.EmiScheduleResponse;
+import org.chandra.dmabackend.model.EmiSchedule;
+
+// Derived schedule months as returned to clients; stored rows are selected straight into this shape
+final class EmiScheduleResponses {
+
+    private EmiScheduleResponses() {
+    }
+
+    static EmiScheduleResponse from(EmiSchedule emiSchedule) {
+
+        EmiScheduleResponse response = new EmiScheduleResponse();
+        response.setMonthIndex(emiSchedule.getMonthIndex());
+        response.setDueDate(emiSchedule.getDueDate());
+        response.setOpeningBalance(emiSchedule.getOpeningBalance());
+        response.setEmiAmount(emiSchedule.getEmiAmount());
+        response.setInterestComponent(emiSchedule.getInterestComponent());
+        response.setPrincipalComponent(emiSchedule.getPrincipalComponent());
+        response.setClosingBalance(emiSchedule.getClosingBalance());
+        response.setStatus(emiSchedule.getStatus().toString());
+
+        return response;
+    }
+}
@@ -0,0 +1,92 @@
+package org.chandra.dmabackend.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.repository.LoanRepository;
+import org.chandra.dmabackend.service.EmiScheduleStore;
+import org.chandra.dmabackend.service.JobCoordinator;
+import org.chandra.dmabackend.service.LoanStatusManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// One-off startup backfill of the EMI counters for loans created before they existed.
+// Loans that already carry counters are skipped, so later startups only run one query.
+// Instances starting together leave it to whichever one gets the job first.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "loan.counters.backfill", havingValue = "true", matchIfMissing = true)
+public class LoanCounterBackfill implements ApplicationRunner {
+
+    private final LoanRepository loanRepository;
+    private final EmiScheduleStore emiScheduleStore;
+    private final LoanStatusManager loanStatusManager;
+    private final TransactionTemplate transactionTemplate;
+    private final JobCoordinator jobCoordinator;
+    private final int chunkSize;
+    private final boolean materialized;
+
+    public LoanCounterBackfill(LoanRepository loanRepository,
+                               EmiScheduleStore emiScheduleStore,
+                               LoanStatusManager loanStatusManager,
+                               TransactionTemplate transactionTemplate,
+                               JobCoordinator jobCoordinator,
+                               @Value("${loan.counters.backfill-chunk-size:500}") int chunkSize,
+                               @Value("${emi.schedule.storage:materialized}") String storage) {
+        this.loanRepository = loanRepository;
+        this.emiScheduleStore = emiScheduleStore;
+        this.loanStatusManager = loanStatusManager;
+        this.transactionTemplate = transactionTemplate;
+        this.jobCoordinator = jobCoordinator;
+        this.chunkSize = chunkSize;
+        this.materialized = "materialized".equals(storage);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        jobCoordinator.runExclusive("loan-counter-backfill", this::backfillAll);
+    }
+
+    private void backfillAll() {
+
+        long lastId = 0;
+        int backfilled = 0;
+
+        while (true) {
+            List<Long> ids = loanRepository.findIdsWithoutEmiCounts(lastId, Limit.of(chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            // One transaction per chunk keeps locks and the persistence context small
+            transactionTemplate.executeWithoutResult(status -> backfill(ids));
+
+            backfilled += ids.size();
+            lastId = ids.get(ids.size() - 1);
+        }
+
+        if (backfilled > 0) {
+            log.info("Backfilled EMI counters for {} loans", backfilled);
+        }
+    }
+
+    private void backfill(List<Long> ids) {
+
+        // Stored rows are the whole schedule, so the database can count them in one statement
+        if (materialized) {
+            loanRepository.backfillEmiCounters(ids.get(0), ids.get(ids.size() - 1));
+            return;
+        }
+
+        // Virtual schedules need their derived months, which only the store can produce
+        for (Loan loan : loanRepository.findAllById(ids)) {
+            loanStatusManager.recountEmis(loan, emiScheduleStore.loadSchedule(loan));
+        }
+    }
+}
@@ -1,26 +1,32 @@
 package org.chandra.dmabackend.service.impl;
 
-import jakarta.transaction.Transactional;
 import org.chandra.dmabackend.dto.DerivedDates;
+import org.chandra.dmabackend.dto.KeysetPage;
+import org.chandra.dmabackend.dto.PageCursor;
 import org.chandra.dmabackend.dto.request.ExistingLoanRequest;
 import org.chandra.dmabackend.dto.request.NewLoanRequest;
 import org.chandra.dmabackend.dto.response.EmiScheduleResponse;
 import org.chandra.dmabackend.dto.response.LoanResponse;
+import org.chandra.dmabackend.event.LoanChangedEvent;
 import org.chandra.dmabackend.model.EmiSchedule;
 import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.model.LoanStatus;
 import org.chandra.dmabackend.model.User;
-import org.chandra.dmabackend.repository.EmiScheduleRepository;
 import org.chandra.dmabackend.repository.LoanRepository;
 import org.chandra.dmabackend.repository.UserRepository;
 import org.chandra.dmabackend.service.EmiCalculationService;
-import org.chandra.dmabackend.service.EmiScheduleGeneratorService;
+import org.chandra.dmabackend.service.EmiScheduleStore;
 import org.chandra.dmabackend.service.LoanDateService;
 import org.chandra.dmabackend.service.LoanService;
+import org.chandra.dmabackend.service.LoanStatusManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class LoanServiceImpl implements LoanService {
@@ -29,19 +35,23 @@ public class LoanServiceImpl implements LoanService {
     private final LoanDateService loanDateService;
     private final EmiCalculationService emiCalculationService;
     private final LoanRepository loanRepository;
-    private final EmiScheduleGeneratorService emiScheduleGeneratorService;
-    private final EmiScheduleRepository emiScheduleRepository;
+    private final EmiScheduleStore emiScheduleStore;
+    private final LoanStatusManager loanStatusManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     public LoanServiceImpl(UserRepository userRepository,
                            LoanDateService loanDateService,
                            EmiCalculationService emiCalculationService,
-                           LoanRepository loanRepository, EmiScheduleGeneratorService emiScheduleGeneratorService, EmiScheduleRepository emiScheduleRepository) {
+                           LoanRepository loanRepository, EmiScheduleStore emiScheduleStore,
+                           LoanStatusManager loanStatusManager,
+                           ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.loanDateService = loanDateService;
         this.emiCalculationService = emiCalculationService;
         this.loanRepository = loanRepository;
-        this.emiScheduleGeneratorService = emiScheduleGeneratorService;
-        this.emiScheduleRepository = emiScheduleRepository;
+        this.emiScheduleStore = emiScheduleStore;
+        this.loanStatusManager = loanStatusManager;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -77,13 +87,14 @@ public class LoanServiceImpl implements LoanService {
         loan.setForeclosureAllowed(request.getForeclosureAllowed());
         loan.setForeclosurePenaltyPercent(request.getForeclosurePenaltyPercent());
         loan.setPartPaymentAllowed(request.getPartPaymentAllowed());
-        loan.setStatus("ACTIVE");
+        loan.setStatus(LoanStatus.ACTIVE);
 
         Loan savedLoan = loanRepository.save(loan);
 
-        List<EmiSchedule> schedule = emiScheduleGeneratorService.generateSchedule(savedLoan);
+        List<EmiSchedule> schedule = emiScheduleStore.initialize(savedLoan);
+        loanStatusManager.recountEmis(savedLoan, schedule);
 
-        emiScheduleRepository.saveAll(schedule);
+        eventPublisher.publishEvent(new LoanChangedEvent(userId, savedLoan.getId()));
 
         LoanResponse response = new LoanResponse();
         response.setId(savedLoan.getId());
@@ -96,7 +107,7 @@ public class LoanServiceImpl implements LoanService {
         response.setEmiAmount(savedLoan.getEmiAmount());
         response.setStartDate(savedLoan.getStartDate());
         response.setEmiStartDate(savedLoan.getEmiStartDate());
-        response.setStatus(savedLoan.getStatus());
+        response.setStatus(savedLoan.getStatus().name());
 
         return response;
     }
@@ -140,13 +151,14 @@ public class LoanServiceImpl implements LoanService {
         loan.setForeclosureAllowed(request.getForeclosureAllowed());
         loan.setForeclosurePenaltyPercent(request.getForeclosurePenaltyPercent());
         loan.setPartPaymentAllowed(request.getPartPaymentAllowed());
-        loan.setStatus("ACTIVE");
+        loan.setStatus(LoanStatus.ACTIVE);
 
         Loan savedLoan = loanRepository.save(loan);
 
-        List<EmiSchedule> schedule = emiScheduleGeneratorService.generateSchedule(savedLoan);
+        List<EmiSchedule> schedule = emiScheduleStore.initialize(savedLoan);
+        loanStatusManager.recountEmis(savedLoan, schedule);
 
-        emiScheduleRepository.saveAll(schedule);
+        eventPublisher.publishEvent(new LoanChangedEvent(userId, savedLoan.getId()));
 
         LoanResponse response = new LoanResponse();
         response.setId(savedLoan.getId());
@@ -159,40 +171,77 @@ public class LoanServiceImpl implements LoanService {
         response.setEmiAmount(savedLoan.getEmiAmount());
         response.setStartDate(savedLoan.getStartDate());
         response.setEmiStartDate(savedLoan.getEmiStartDate());
-        response.setStatus(savedLoan.getStatus());
+        response.setStatus(savedLoan.getStatus().name());
 
         return response;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<EmiScheduleResponse> getSchedule(Long loanId, Long userId) {
 
-        Loan loan = loanRepository.findById(loanId)
+        Long ownerId = loanRepository.findUserIdById(loanId)
                 .orElseThrow(() -> new IllegalArgumentException("Loan not found"));
 
-        if (!loan.getUser().getId().equals(userId)){
+        if (!ownerId.equals(userId)){
             throw new IllegalArgumentException("Unauthorized access");
         }
 
-        List<EmiSchedule> schedule = emiScheduleRepository.findByLoanOrderByMonthIndexAsc(loan);
+        // A proxy is enough for stored rows; only a virtual tail initializes it
+        return emiScheduleStore.loadScheduleResponses(loanRepository.getReferenceById(loanId));
+    }
+
+    // Keyset page on (loan_id, month_index): the cursor is the last month index returned
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<EmiScheduleResponse> getSchedulePage(Long loanId, Long userId, String cursor,
+                                                           LocalDate from, LocalDate to, Integer limit) {
+
+        Long ownerId = loanRepository.findUserIdById(loanId)
+                .orElseThrow(() -> new IllegalArgumentException("Loan not found"));
 
-        List<EmiScheduleResponse> scheduleResponse = new ArrayList<>();
+        if (!ownerId.equals(userId)){
+            throw new IllegalArgumentException("Unauthorized access");
+        }
+
+        int pageSize = PageCursor.pageSize(limit);
+        int afterMonthIndex = 0;
+        if (cursor != null) {
+            try {
+                afterMonthIndex = Integer.parseInt(PageCursor.decode(cursor, 1)[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
 
-        for(EmiSchedule emiSchedule : schedule){
+        // One extra row tells whether there is a next page; a proxy is enough for stored rows
+        List<EmiScheduleResponse> rows = emiScheduleStore.loadSchedulePage(loanRepository.getReferenceById(loanId),
+                afterMonthIndex,
+                from != null ? from : PageCursor.EARLIEST_DATE,
+                to != null ? to : PageCursor.LATEST_DATE,
+                pageSize + 1);
 
-            EmiScheduleResponse response = new EmiScheduleResponse();
-            response.setMonthIndex(emiSchedule.getMonthIndex());
-            response.setDueDate(emiSchedule.getDueDate());
-            response.setOpeningBalance(emiSchedule.getOpeningBalance());
-            response.setEmiAmount(emiSchedule.getEmiAmount());
-            response.setInterestComponent(emiSchedule.getInterestComponent());
-            response.setPrincipalComponent(emiSchedule.getPrincipalComponent());
-            response.setClosingBalance(emiSchedule.getClosingBalance());
-            response.setStatus(emiSchedule.getStatus().toString());
+        boolean hasMore = rows.size() > pageSize;
+        List<EmiScheduleResponse> items = hasMore ? rows.subList(0, pageSize) : rows;
 
-            scheduleResponse.add(response);
+        String nextCursor = hasMore ? PageCursor.encode(items.get(items.size() - 1).getMonthIndex()) : null;
+
+        return new KeysetPage<>(items, nextCursor);
+    }
+
+    // One row at a time from a database cursor, selected straight into the response shape,
+    // so nothing accumulates in the persistence context however long the schedule is
+    @Override
+    @Transactional(readOnly = true)
+    public void streamSchedule(Long loanId, Long userId, Consumer<EmiScheduleResponse> sink) {
+
+        Long ownerId = loanRepository.findUserIdById(loanId)
+                .orElseThrow(() -> new IllegalArgumentException("Loan not found"));
+
+        if (!ownerId.equals(userId)){
+            throw new IllegalArgumentException("Unauthorized access");
         }
 
-        return scheduleResponse;
+        emiScheduleStore.streamSchedule(loanRepository.getReferenceById(loanId), sink);
     }
 }
@@ -1,30 +1,51 @@
 package org.chandra.dmabackend.service.impl;
 
-import jakarta.transaction.Transactional;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.chandra.dmabackend.dto.response.LoanHealthResponse;
 import org.chandra.dmabackend.dto.response.LoanSummaryResponse;
+import org.chandra.dmabackend.event.LoanChangedEvent;
 import org.chandra.dmabackend.model.EmiSchedule;
 import org.chandra.dmabackend.model.EmiScheduleStatus;
 import org.chandra.dmabackend.model.Loan;
-import org.chandra.dmabackend.repository.EmiScheduleRepository;
+import org.chandra.dmabackend.model.LoanStatus;
+import org.chandra.dmabackend.repository.LoanHealthView;
 import org.chandra.dmabackend.repository.LoanRepository;
+import org.chandra.dmabackend.repository.LoanSummaryView;
 import org.chandra.dmabackend.service.LoanStatusManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class LoanStatusManagerImpl implements LoanStatusManager {
 
-    private final EmiScheduleRepository emiScheduleRepository;
     private final LoanRepository loanRepository;
 
-    public LoanStatusManagerImpl(EmiScheduleRepository emiScheduleRepository,
-                                 LoanRepository loanRepository) {
-        this.emiScheduleRepository = emiScheduleRepository;
+    // Summaries per user id, dropped when one of the user's loans changes
+    private final Cache<Long, List<LoanSummaryResponse>> summaryCache;
+
+    public LoanStatusManagerImpl(LoanRepository loanRepository,
+                                 @Value("${loan.summary-cache.max-size:10000}") long maxSize,
+                                 @Value("${loan.summary-cache.ttl:5m}") Duration ttl,
+                                 MeterRegistry meterRegistry) {
         this.loanRepository = loanRepository;
+
+        this.summaryCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, summaryCache, "loan.summaries");
     }
 
     @Override
@@ -32,97 +53,95 @@ public class LoanStatusManagerImpl implements LoanStatusManager {
 
         // 1. CLOSED – loan fully paid
         if (loan.getPrincipal().compareTo(BigDecimal.ZERO) == 0) {
-            loan.setStatus("CLOSED");
+            loan.setStatus(LoanStatus.CLOSED);
             loanRepository.save(loan);
             return;
         }
 
         // 2. FORECLOSED – never override foreclosure
-        if ("FORECLOSED".equalsIgnoreCase(loan.getStatus())) {
+        if (loan.getStatus() == LoanStatus.FORECLOSED) {
             return;
         }
 
         // 3. Check if any EMI is MISSED → loan becomes OVERDUE
-        List<EmiSchedule> emis = emiScheduleRepository.findByLoanOrderByMonthIndexAsc(loan);
-
-        boolean hasMissed = emis.stream()
-                .anyMatch(e -> e.getStatus() == EmiScheduleStatus.MISSED);
-
-        if (hasMissed) {
-            loan.setStatus("OVERDUE");
+        if (loan.getMissedEmiCount() > 0) {
+            loan.setStatus(LoanStatus.OVERDUE);
             loanRepository.save(loan);
             return;
         }
 
         // 4. Otherwise loan remains ACTIVE
-        loan.setStatus("ACTIVE");
+        loan.setStatus(LoanStatus.ACTIVE);
         loanRepository.save(loan);
     }
 
     @Override
-    public String evaluateLoanStatus(Long loanId) {
+    public void recountEmis(Loan loan, List<EmiSchedule> schedule) {
+
+        int paidEmis = 0;
+        int pendingEmis = 0;
+        int missedEmis = 0;
+        EmiSchedule nextPending = null;
+
+        for (EmiSchedule e : schedule) {
+            if (e.getStatus() == EmiScheduleStatus.PAID) {
+                paidEmis++;
+            } else if (e.getStatus() == EmiScheduleStatus.MISSED) {
+                missedEmis++;
+            } else if (e.getStatus() == EmiScheduleStatus.PENDING) {
+                pendingEmis++;
+                if (nextPending == null) nextPending = e;
+            }
+        }
+
+        loan.setTotalEmiCount(schedule.size());
+        loan.setPaidEmiCount(paidEmis);
+        loan.setPendingEmiCount(pendingEmis);
+        loan.setMissedEmiCount(missedEmis);
+        loan.setNextEmi(nextPending);
+    }
+
+    @Override
+    public LoanStatus evaluateLoanStatus(Long loanId) {
         Loan loan = loanRepository.findById(loanId)
                 .orElseThrow(() -> new IllegalArgumentException("Loan not found"));
         return loan.getStatus();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public LoanHealthResponse evaluateLoanHealth(Long loanId, Long userId) {
 
-        Loan loan = loanRepository.findById(loanId)
+        // Read straight into a record, so no Loan or User entity is hydrated
+        LoanHealthView loan = loanRepository.findHealthById(loanId)
                 .orElseThrow(() -> new IllegalArgumentException("Loan not found"));
 
-        if (!loan.getUser().getId().equals(userId)) {
+        if (!loan.userId().equals(userId)) {
             throw new IllegalArgumentException("Unauthorized");
         }
 
-        List<EmiSchedule> schedule =
-                emiScheduleRepository.findByLoanOrderByMonthIndexAsc(loan);
-
-        int totalEmis = schedule.size();
-        int paidEmis = (int) schedule.stream()
-                .filter(e -> e.getStatus() == EmiScheduleStatus.PAID)
-                .count();
-        int pendingEmis = (int) schedule.stream()
-                .filter(e -> e.getStatus() == EmiScheduleStatus.PENDING)
-                .count();
-        int missedEmis = (int) schedule.stream()
-                .filter(e -> e.getStatus() == EmiScheduleStatus.MISSED)
-                .count();
-
-        EmiSchedule nextPending = schedule.stream()
-                .filter(e -> e.getStatus() == EmiScheduleStatus.PENDING)
-                .findFirst()
-                .orElse(null);
-
         LoanHealthResponse response = new LoanHealthResponse();
 
-        response.setLoanId(loan.getId());
-        response.setLoanStatus(loan.getStatus());
+        response.setLoanId(loan.loanId());
+        response.setLoanStatus(loan.loanStatus().name());
 
-        response.setTotalEmis(totalEmis);
-        response.setPaidEmis(paidEmis);
-        response.setPendingEmis(pendingEmis);
-        response.setMissedEmis(missedEmis);
+        response.setTotalEmis(loan.totalEmis());
+        response.setPaidEmis(loan.paidEmis());
+        response.setPendingEmis(loan.pendingEmis());
+        response.setMissedEmis(loan.missedEmis());
 
-        if (nextPending != null) {
-            response.setNextEmiId(nextPending.getId());
-            response.setNextMonthIndex(nextPending.getMonthIndex());
-            response.setNextDueDate(nextPending.getDueDate());
-            response.setNextEmiAmount(nextPending.getEmiAmount());
-        }
+        response.setNextEmiId(loan.nextEmiId());
+        response.setNextMonthIndex(loan.nextMonthIndex());
+        response.setNextDueDate(loan.nextDueDate());
+        response.setNextEmiAmount(loan.nextEmiAmount());
 
-        response.setPrincipalOutstanding(loan.getPrincipal());
+        response.setPrincipalOutstanding(loan.principalOutstanding());
 
-        response.setHasMissedEmis(missedEmis > 0);
-        response.setCanPayNextEmi(nextPending != null &&
-                !"CLOSED".equalsIgnoreCase(loan.getStatus()) &&
-                !"FORECLOSED".equalsIgnoreCase(loan.getStatus()));
+        response.setHasMissedEmis(loan.missedEmis() > 0);
+        response.setCanPayNextEmi(loan.nextEmiId() != null && loan.loanStatus().isOpen());
 
         response.setCanForeclose(
-                loan.getForeclosureAllowed() &&
-                        !"CLOSED".equalsIgnoreCase(loan.getStatus()) &&
-                        !"FORECLOSED".equalsIgnoreCase(loan.getStatus())
+                loan.foreclosureAllowed() && loan.loanStatus().isOpen()
         );
 
         return response;
@@ -130,59 +149,50 @@ public class LoanStatusManagerImpl implements LoanStatusManager {
 
     @Override
     public List<LoanSummaryResponse> getUserLoanSummaries(Long userId) {
+        return summaryCache.get(userId, this::loadUserLoanSummaries);
+    }
 
-        List<Loan> loans = loanRepository.findByUserId(userId);
-
-        List<LoanSummaryResponse> summaries = new ArrayList<>();
+    // Runs after the publishing transaction commits, so the next read sees the new state
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        summaryCache.invalidate(event.userId());
+    }
 
-        for (Loan loan : loans) {
+    private List<LoanSummaryResponse> loadUserLoanSummaries(Long userId) {
 
-            List<EmiSchedule> schedule =
-                    emiScheduleRepository.findByLoanOrderByMonthIndexAsc(loan);
+        List<LoanSummaryView> loans = loanRepository.findSummariesByUserId(userId);
 
-            int totalEmis = schedule.size();
-            int paidEmis = (int) schedule.stream().filter(e -> e.getStatus() == EmiScheduleStatus.PAID).count();
-            int pendingEmis = (int) schedule.stream().filter(e -> e.getStatus() == EmiScheduleStatus.PENDING).count();
-            int missedEmis = (int) schedule.stream().filter(e -> e.getStatus() == EmiScheduleStatus.MISSED).count();
+        List<LoanSummaryResponse> summaries = new ArrayList<>(loans.size());
 
-            EmiSchedule nextPending = schedule.stream()
-                    .filter(e -> e.getStatus() == EmiScheduleStatus.PENDING)
-                    .findFirst()
-                    .orElse(null);
+        for (LoanSummaryView loan : loans) {
 
             LoanSummaryResponse dto = new LoanSummaryResponse();
 
-            dto.setLoanId(loan.getId());
+            dto.setLoanId(loan.getLoanId());
             dto.setLoanName(loan.getLoanName());
             dto.setCategory(loan.getCategory());
             dto.setLender(loan.getLender());
-            dto.setPrincipalOutstanding(loan.getPrincipal());
-            dto.setLoanStatus(loan.getStatus());
-
-            dto.setTotalEmis(totalEmis);
-            dto.setPaidEmis(paidEmis);
-            dto.setPendingEmis(pendingEmis);
-            dto.setMissedEmis(missedEmis);
-
-            if (nextPending != null) {
-                dto.setNextEmiId(nextPending.getId());
-                dto.setNextMonthIndex(nextPending.getMonthIndex());
-                dto.setNextDueDate(nextPending.getDueDate());
-                dto.setNextEmiAmount(nextPending.getEmiAmount());
-            }
+            dto.setPrincipalOutstanding(loan.getPrincipalOutstanding());
+            dto.setLoanStatus(loan.getLoanStatus().name());
+
+            dto.setTotalEmis(loan.getTotalEmis());
+            dto.setPaidEmis(loan.getPaidEmis());
+            dto.setPendingEmis(loan.getPendingEmis());
+            dto.setMissedEmis(loan.getMissedEmis());
+
+            dto.setNextEmiId(loan.getNextEmiId());
+            dto.setNextMonthIndex(loan.getNextMonthIndex());
+            dto.setNextDueDate(loan.getNextDueDate());
+            dto.setNextEmiAmount(loan.getNextEmiAmount());
 
-            dto.setHasMissedEmis(missedEmis > 0);
+            dto.setHasMissedEmis(loan.getMissedEmis() > 0);
 
-            dto.setCanPayNextEmi(
-                    nextPending != null &&
-                            !"CLOSED".equalsIgnoreCase(loan.getStatus()) &&
-                            !"FORECLOSED".equalsIgnoreCase(loan.getStatus())
-            );
+            dto.setCanPayNextEmi(loan.getNextEmiId() != null && loan.getLoanStatus().isOpen());
 
             summaries.add(dto);
         }
 
-        return summaries;
+        return List.copyOf(summaries);
     }
 
 }
@@ -0,0 +1,146 @@
+package org.chandra.dmabackend.service.impl;
+
+import org.chandra.dmabackend.dto.response.EmiScheduleResponse;
+import org.chandra.dmabackend.model.EmiSchedule;
+import org.chandra.dmabackend.model.EmiScheduleStatus;
+import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.repository.EmiScheduleRepository;
+import org.chandra.dmabackend.service.EmiScheduleGeneratorService;
+import org.chandra.dmabackend.service.EmiScheduleStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Stores one emi_schedule row per month for the whole life of the loan
+@Service
+@ConditionalOnProperty(name = "emi.schedule.storage", havingValue = "materialized", matchIfMissing = true)
+public class MaterializedEmiScheduleStoreImpl implements EmiScheduleStore {
+
+    private final EmiScheduleRepository emiScheduleRepository;
+    private final EmiScheduleGeneratorService emiScheduleGeneratorService;
+
+    public MaterializedEmiScheduleStoreImpl(EmiScheduleRepository emiScheduleRepository,
+                                            EmiScheduleGeneratorService emiScheduleGeneratorService) {
+        this.emiScheduleRepository = emiScheduleRepository;
+        this.emiScheduleGeneratorService = emiScheduleGeneratorService;
+    }
+
+    @Override
+    public List<EmiSchedule> initialize(Loan loan) {
+
+        List<EmiSchedule> schedule = emiScheduleGeneratorService.generateSchedule(loan);
+
+        emiScheduleRepository.insertAll(schedule);
+
+        return schedule;
+    }
+
+    @Override
+    public List<EmiSchedule> loadSchedule(Loan loan) {
+        return emiScheduleRepository.findByLoanOrderByMonthIndexAsc(loan);
+    }
+
+    @Override
+    public List<EmiScheduleResponse> loadScheduleResponses(Loan loan) {
+        return emiScheduleRepository.findResponsesByLoanId(loan.getId());
+    }
+
+    @Override
+    public List<EmiScheduleResponse> loadSchedulePage(Loan loan, int afterMonthIndex, LocalDate from, LocalDate to, int limit) {
+        return emiScheduleRepository.findResponsePage(loan.getId(), afterMonthIndex, from, to, Limit.of(limit));
+    }
+
+    @Override
+    public void streamSchedule(Loan loan, Consumer<EmiScheduleResponse> action) {
+        try (Stream<EmiScheduleResponse> rows = emiScheduleRepository.streamResponsesByLoanId(loan.getId())) {
+            rows.forEach(action);
+        }
+    }
+
+    @Override
+    public void afterSettled(Loan loan, EmiSchedule settled) {
+        // Every month is already stored
+    }
+
+    @Override
+    public int reamortize(Loan loan) {
+
+        List<EmiSchedule> pendingEmis =
+                emiScheduleRepository.findByLoanAndStatusOrderByMonthIndexAsc(loan, EmiScheduleStatus.PENDING);
+
+        if (pendingEmis.isEmpty()) {
+            throw new IllegalArgumentException("No pending EMIs");
+        }
+
+        return reamortizeRows(loan, pendingEmis);
+    }
+
+    @Override
+    public int foreclose(Loan loan) {
+
+        List<EmiSchedule> pending =
+                emiScheduleRepository.findByLoanAndStatusOrderByMonthIndexAsc(loan, EmiScheduleStatus.PENDING);
+
+        for (EmiSchedule e : pending) {
+            e.setStatus(EmiScheduleStatus.FORECLOSED);
+        }
+        emiScheduleRepository.saveAll(pending);
+
+        return pending.size();
+    }
+
+    // Re-amortizes the given pending rows in place from the loan's current principal.
+    // Month index and due date of each row are kept; unchanged rows are not written,
+    // and rows the shorter tenure no longer needs are deleted in one statement.
+    public int reamortizeRows(Loan loan, List<EmiSchedule> pendingEmis) {
+
+        List<EmiSchedule> recalculated = List.of();
+
+        if (loan.getPrincipal().compareTo(BigDecimal.ZERO) > 0) {
+            Loan loanView = new Loan();
+            loanView.setPrincipal(loan.getPrincipal());
+            loanView.setInterestRate(loan.getInterestRate());
+            loanView.setEmiAmount(loan.getEmiAmount());
+            loanView.setTenureMonths(pendingEmis.size());
+            loanView.setEmiStartDate(pendingEmis.get(0).getDueDate());
+
+            recalculated = emiScheduleGeneratorService.generateSchedule(loanView);
+        }
+
+        for (int i = 0; i < recalculated.size(); i++) {
+
+            EmiSchedule existing = pendingEmis.get(i);
+            EmiSchedule updated = recalculated.get(i);
+
+            if (existing.getOpeningBalance().compareTo(updated.getOpeningBalance()) != 0) {
+                existing.setOpeningBalance(updated.getOpeningBalance());
+            }
+            if (existing.getInterestComponent().compareTo(updated.getInterestComponent()) != 0) {
+                existing.setInterestComponent(updated.getInterestComponent());
+            }
+            if (existing.getPrincipalComponent().compareTo(updated.getPrincipalComponent()) != 0) {
+                existing.setPrincipalComponent(updated.getPrincipalComponent());
+            }
+            if (existing.getClosingBalance().compareTo(updated.getClosingBalance()) != 0) {
+                existing.setClosingBalance(updated.getClosingBalance());
+            }
+        }
+
+        List<Long> obsoleteIds = pendingEmis.subList(recalculated.size(), pendingEmis.size())
+                .stream()
+                .map(EmiSchedule::getId)
+                .toList();
+
+        if (!obsoleteIds.isEmpty()) {
+            emiScheduleRepository.deleteAllByIdInBatch(obsoleteIds);
+        }
+
+        return recalculated.size();
+    }
+}
@@ -0,0 +1,192 @@
+package org.chandra.dmabackend.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.chandra.dmabackend.event.LoanChangedEvent;
+import org.chandra.dmabackend.model.EmiScheduleStatus;
+import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.model.LoanStatus;
+import org.chandra.dmabackend.repository.EmiScheduleRepository;
+import org.chandra.dmabackend.repository.LoanRepository;
+import org.chandra.dmabackend.repository.OverdueSweepView;
+import org.chandra.dmabackend.service.EmiScheduleStore;
+import org.chandra.dmabackend.service.JobCoordinator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Nightly job that marks PENDING EMIs whose due date has passed as MISSED and moves their
+// loans to OVERDUE. Loans are split into hash partitions of loan_id that workers on every
+// instance claim through the JobCoordinator, so the sweep scales out across instances.
+// Within a partition, chunks are claimed with FOR UPDATE SKIP LOCKED, so a chunk never
+// waits on a repayment in flight.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "emi.overdue-sweep.enabled", havingValue = "true", matchIfMissing = true)
+public class OverdueEmiSweeper {
+
+    private static final String JOB = "overdue-sweep";
+    private static final List<LoanStatus> OPEN = List.of(LoanStatus.ACTIVE, LoanStatus.OVERDUE);
+
+    private final EmiScheduleRepository emiScheduleRepository;
+    private final LoanRepository loanRepository;
+    private final EmiScheduleStore emiScheduleStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobCoordinator jobCoordinator;
+    private final int chunkSize;
+    private final int workers;
+    private final int partitions;
+
+    private final Timer sweepTimer;
+    private final Counter sweptEmis;
+    // Days between the oldest overdue PENDING EMI and the day of the last run
+    private final AtomicLong lagDays = new AtomicLong();
+
+    public OverdueEmiSweeper(EmiScheduleRepository emiScheduleRepository,
+                             LoanRepository loanRepository,
+                             EmiScheduleStore emiScheduleStore,
+                             TransactionTemplate transactionTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             JobCoordinator jobCoordinator,
+                             @Value("${emi.overdue-sweep.chunk-size:500}") int chunkSize,
+                             @Value("${emi.overdue-sweep.workers:2}") int workers,
+                             @Value("${emi.overdue-sweep.partitions:16}") int partitions,
+                             MeterRegistry meterRegistry) {
+        this.emiScheduleRepository = emiScheduleRepository;
+        this.loanRepository = loanRepository;
+        this.emiScheduleStore = emiScheduleStore;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.jobCoordinator = jobCoordinator;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+        this.partitions = partitions;
+
+        this.sweepTimer = meterRegistry.timer("emi.overdue_sweep.duration");
+        this.sweptEmis = meterRegistry.counter("emi.overdue_sweep.swept");
+        meterRegistry.gauge("emi.overdue_sweep.lag.days", lagDays);
+    }
+
+    @Scheduled(cron = "${emi.overdue-sweep.cron:0 15 0 * * *}")
+    public void sweep() {
+        sweep(LocalDate.now());
+    }
+
+    // Returns the number of EMIs this instance marked MISSED
+    public long sweep(LocalDate today) {
+
+        long started = System.nanoTime();
+
+        LocalDate oldestDue = emiScheduleRepository.findOldestPendingDueDate(today, OPEN);
+        if (oldestDue == null) {
+            lagDays.set(0);
+            log.info("Overdue sweep for {}: nothing past due", today);
+            return 0;
+        }
+        lagDays.set(ChronoUnit.DAYS.between(oldestDue, today));
+
+        LongAdder emis = new LongAdder();
+        Set<Long> loans = ConcurrentHashMap.newKeySet();
+        LongAdder partitionsRun = new LongAdder();
+
+        List<Future<?>> running = new ArrayList<>(workers);
+        try (ExecutorService pool = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("overdue-sweep-"))) {
+            for (int i = 0; i < workers; i++) {
+                running.add(pool.submit(() -> partitionsRun.add(
+                        jobCoordinator.runPartitions(JOB, partitions, partition -> drain(today, partition, emis, loans)))));
+            }
+            for (Future<?> worker : running) {
+                awaitWorker(worker);
+            }
+        }
+
+        Duration took = Duration.ofNanos(System.nanoTime() - started);
+        sweepTimer.record(took);
+        sweptEmis.increment(emis.sum());
+
+        // Partitions released early may be claimed again by another worker, so runs can exceed partitions
+        log.info("Overdue sweep for {}: {} EMIs marked MISSED on {} loans in {} ms, {} partition runs here, " +
+                        "oldest due date {} ({} days behind)",
+                today, emis.sum(), loans.size(), took.toMillis(), partitionsRun.sum(),
+                oldestDue, lagDays.get());
+
+        return emis.sum();
+    }
+
+    // Claims and commits chunks of one partition until none is left to claim
+    private void drain(LocalDate today, int partition, LongAdder emis, Set<Long> loans) {
+        while (true) {
+            List<OverdueSweepView> swept = transactionTemplate.execute(status -> sweepChunk(today, partition));
+            if (swept == null || swept.isEmpty()) {
+                return;
+            }
+            for (OverdueSweepView loan : swept) {
+                emis.add(loan.getMissedEmis());
+                loans.add(loan.getLoanId());
+            }
+        }
+    }
+
+    private List<OverdueSweepView> sweepChunk(LocalDate today, int partition) {
+
+        List<OverdueSweepView> swept = emiScheduleRepository.markPastDueMissed(today, partition, partitions, chunkSize);
+
+        for (OverdueSweepView row : swept) {
+
+            // Virtual schedules store only the next PENDING row; once it is MISSED the
+            // following month has to be stored so the loan keeps a payable next EMI.
+            // If that month is past due as well, a later chunk claims it.
+            if (row.getNextEmiId() == null) {
+                storeNextMonth(row.getLoanId());
+            }
+
+            eventPublisher.publishEvent(new LoanChangedEvent(row.getUserId(), row.getLoanId()));
+        }
+
+        return swept;
+    }
+
+    private void storeNextMonth(Long loanId) {
+
+        Loan loan = loanRepository.findById(loanId).orElseThrow();
+
+        emiScheduleRepository.findFirstByLoanOrderByMonthIndexDesc(loan)
+                .ifPresent(last -> emiScheduleStore.afterSettled(loan, last));
+
+        loan.setNextEmi(emiScheduleRepository
+                .findFirstByLoanAndStatusOrderByMonthIndexAsc(loan, EmiScheduleStatus.PENDING)
+                .orElse(null));
+    }
+
+    private static void awaitWorker(Future<?> worker) {
+        try {
+            worker.get();
+        } catch (ExecutionException e) {
+            // Committed chunks stay committed; the next run picks up what is left
+            log.warn("Overdue sweep worker failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
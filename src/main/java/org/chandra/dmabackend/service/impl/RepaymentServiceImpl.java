@@ -1,21 +1,36 @@
 package org.chandra.dmabackend.service.impl;
 
-import jakarta.transaction.Transactional;
+import org.chandra.dmabackend.dto.KeysetPage;
+import org.chandra.dmabackend.dto.PageCursor;
+import org.chandra.dmabackend.dto.request.EmiPaymentItem;
 import org.chandra.dmabackend.dto.response.*;
+import org.chandra.dmabackend.event.LoanChangedEvent;
 import org.chandra.dmabackend.model.*;
 import org.chandra.dmabackend.repository.EmiScheduleRepository;
 import org.chandra.dmabackend.repository.LoanRepository;
 import org.chandra.dmabackend.repository.PaymentRepository;
-import org.chandra.dmabackend.service.EmiScheduleGeneratorService;
+import org.chandra.dmabackend.service.EmiScheduleStore;
 import org.chandra.dmabackend.service.LoanStatusManager;
 import org.chandra.dmabackend.service.RepaymentService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -24,19 +39,22 @@ public class RepaymentServiceImpl implements RepaymentService {
     private final EmiScheduleRepository emiScheduleRepository;
     private final LoanRepository loanRepository;
     private final PaymentRepository paymentRepository;
-    private final EmiScheduleGeneratorService emiScheduleGeneratorService;
+    private final EmiScheduleStore emiScheduleStore;
     private final LoanStatusManager loanStatusManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     public RepaymentServiceImpl(EmiScheduleRepository emiScheduleRepository,
                                 LoanRepository loanRepository,
                                 PaymentRepository paymentRepository,
-                                EmiScheduleGeneratorService emiScheduleGeneratorService,
-                                LoanStatusManager loanStatusManager) {
+                                EmiScheduleStore emiScheduleStore,
+                                LoanStatusManager loanStatusManager,
+                                ApplicationEventPublisher eventPublisher) {
         this.emiScheduleRepository = emiScheduleRepository;
         this.loanRepository = loanRepository;
         this.paymentRepository = paymentRepository;
-        this.emiScheduleGeneratorService = emiScheduleGeneratorService;
+        this.emiScheduleStore = emiScheduleStore;
         this.loanStatusManager = loanStatusManager;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -48,12 +66,125 @@ public class RepaymentServiceImpl implements RepaymentService {
 
         Loan loan = emi.getLoan();
 
+        amountPaid = checkPayable(loan, emi, userId, amountPaid);
+
+        Payment p = settlePaid(loan, emi, amountPaid, LocalDate.now(),
+                "EMI payment for month " + emi.getMonthIndex());
+        emiScheduleRepository.save(emi);
+        loanRepository.save(loan);
+        paymentRepository.save(p);
+
+        emiScheduleStore.afterSettled(loan, emi);
+        recordSettled(loan, emi);
+
+        loanStatusManager.updateLoanStatus(loan);
+
+        eventPublisher.publishEvent(new LoanChangedEvent(userId, loan.getId()));
+
+        return toPayEmiResponse(loan, emi);
+    }
+
+    // Same checks and split as payEmi, applied in month order within each loan, with every
+    // EMI and loan loaded by one query, one batched insert of the payments and each loan's
+    // next EMI and status recomputed once. Items that fail a check are reported and skipped.
+    @Override
+    @Transactional
+    public BatchEmiPaymentResponse payEmis(Long userId, List<EmiPaymentItem> items) {
+
+        List<Long> ids = new ArrayList<>(items.size());
+        for (EmiPaymentItem item : items) {
+            ids.add(item.getEmiId());
+        }
+
+        Map<Long, EmiSchedule> emis = new HashMap<>();
+        for (EmiSchedule e : emiScheduleRepository.findWithLoanByIdIn(ids)) {
+            emis.put(e.getId(), e);
+        }
+
+        EmiPaymentResult[] results = new EmiPaymentResult[items.size()];
+        List<Integer> payable = new ArrayList<>(items.size());
+        Set<Long> seen = new HashSet<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            Long emiId = items.get(i).getEmiId();
+            if (!seen.add(emiId)) {
+                results[i] = EmiPaymentResult.rejected(emiId, "Duplicate EMI in batch");
+            } else if (!emis.containsKey(emiId)) {
+                results[i] = EmiPaymentResult.rejected(emiId, "EMI not found");
+            } else {
+                payable.add(i);
+            }
+        }
+
+        payable.sort(Comparator
+                .comparing((Integer i) -> emis.get(items.get(i).getEmiId()).getLoan().getId())
+                .thenComparing(i -> emis.get(items.get(i).getEmiId()).getMonthIndex()));
+
+        List<Payment> payments = new ArrayList<>(payable.size());
+        Map<Loan, List<EmiSchedule>> settledByLoan = new LinkedHashMap<>();
+
+        for (int i : payable) {
+
+            EmiSchedule emi = emis.get(items.get(i).getEmiId());
+            Loan loan = emi.getLoan();
+
+            BigDecimal amountPaid;
+            try {
+                amountPaid = checkPayable(loan, emi, userId, items.get(i).getAmountPaid());
+            } catch (IllegalArgumentException e) {
+                results[i] = EmiPaymentResult.rejected(emi.getId(), e.getMessage());
+                continue;
+            }
+
+            payments.add(settlePaid(loan, emi, amountPaid, LocalDate.now(),
+                    "EMI payment for month " + emi.getMonthIndex()));
+            emiScheduleStore.afterSettled(loan, emi);
+            countSettled(loan, emi);
+            settledByLoan.computeIfAbsent(loan, l -> new ArrayList<>()).add(emi);
+        }
+
+        paymentRepository.saveAll(payments);
+
+        for (Map.Entry<Loan, List<EmiSchedule>> entry : settledByLoan.entrySet()) {
+
+            Loan loan = entry.getKey();
+
+            for (EmiSchedule settled : entry.getValue()) {
+                if (settled.getId().equals(loan.getNextEmiId())) {
+                    advanceNextEmi(loan);
+                    break;
+                }
+            }
+
+            loanStatusManager.updateLoanStatus(loan);
+
+            eventPublisher.publishEvent(new LoanChangedEvent(userId, loan.getId()));
+        }
+
+        // Built last, so every item carries its loan's final status
+        for (int i : payable) {
+            if (results[i] == null) {
+                EmiSchedule emi = emis.get(items.get(i).getEmiId());
+                results[i] = EmiPaymentResult.paid(toPayEmiResponse(emi.getLoan(), emi));
+            }
+        }
+
+        BatchEmiPaymentResponse response = new BatchEmiPaymentResponse();
+        response.setPaidCount(payments.size());
+        response.setRejectedCount(items.size() - payments.size());
+        response.setResults(List.of(results));
+
+        return response;
+    }
+
+    // Returns the amount to record, the EMI amount when none was given
+    private static BigDecimal checkPayable(Loan loan, EmiSchedule emi, Long userId, BigDecimal amountPaid) {
+
         if (!loan.getUser().getId().equals(userId)) {
             throw new IllegalArgumentException("Unauthorized access");
         }
 
-        if ("CLOSED".equalsIgnoreCase(loan.getStatus()) ||
-                "FORECLOSED".equalsIgnoreCase(loan.getStatus())) {
+        if (!loan.getStatus().isOpen()) {
             throw new IllegalArgumentException("Loan already closed");
         }
 
@@ -69,6 +200,17 @@ public class RepaymentServiceImpl implements RepaymentService {
             throw new IllegalArgumentException("Insufficient EMI payment");
         }
 
+        return amountPaid;
+    }
+
+    // Splits the EMI into interest on its opening balance and principal, marks it PAID,
+    // moves the loan's outstanding to its closing balance and returns the payment to store.
+    // Every path that pays an EMI goes through here, so they all record the same split.
+    private static Payment settlePaid(Loan loan, EmiSchedule emi, BigDecimal amountPaid,
+                                      LocalDate paymentDate, String remarks) {
+
+        BigDecimal emiAmount = emi.getEmiAmount();
+
         BigDecimal openingBalance = emi.getOpeningBalance();
         BigDecimal monthlyRate = loan.getInterestRate()
                 .divide(BigDecimal.valueOf(1200), 34, RoundingMode.HALF_UP);
@@ -87,34 +229,32 @@ public class RepaymentServiceImpl implements RepaymentService {
         emi.setPrincipalComponent(principalComponent);
         emi.setClosingBalance(closingBalance);
         emi.setStatus(EmiScheduleStatus.PAID);
-        emiScheduleRepository.save(emi);
 
         loan.setPrincipal(closingBalance);
-        loanRepository.save(loan);
 
         Payment p = new Payment();
         p.setLoan(loan);
-        p.setPaymentDate(LocalDate.now());
+        p.setPaymentDate(paymentDate);
         p.setAmountPaid(amountPaid);
         p.setAllocatedToInterest(interestComponent);
         p.setAllocatedToPrincipal(principalComponent);
         p.setOutstandingAfterPayment(closingBalance);
         p.setPaymentType(PaymentType.EMI);
-        p.setRemarks("EMI payment for month " + emi.getMonthIndex());
-        paymentRepository.save(p);
+        p.setRemarks(remarks);
 
-        loanStatusManager.updateLoanStatus(loan);
+        return p;
+    }
 
+    private static PayEmiResponse toPayEmiResponse(Loan loan, EmiSchedule emi) {
         PayEmiResponse response = new PayEmiResponse();
         response.setEmiId(emi.getId());
         response.setMonthIndex(emi.getMonthIndex());
-        response.setOpeningBalance(openingBalance);
-        response.setInterestComponent(interestComponent);
-        response.setPrincipalComponent(principalComponent);
-        response.setClosingBalance(closingBalance);
-        response.setUpdatedLoanOutstanding(closingBalance);
-        response.setLoanStatus(loan.getStatus());
-
+        response.setOpeningBalance(emi.getOpeningBalance());
+        response.setInterestComponent(emi.getInterestComponent());
+        response.setPrincipalComponent(emi.getPrincipalComponent());
+        response.setClosingBalance(emi.getClosingBalance());
+        response.setUpdatedLoanOutstanding(emi.getClosingBalance());
+        response.setLoanStatus(loan.getStatus().name());
         return response;
     }
 
@@ -133,8 +273,7 @@ public class RepaymentServiceImpl implements RepaymentService {
             throw new IllegalArgumentException("Part-payment not allowed");
         }
 
-        if ("CLOSED".equalsIgnoreCase(loan.getStatus()) ||
-                "FORECLOSED".equalsIgnoreCase(loan.getStatus())) {
+        if (!loan.getStatus().isOpen()) {
             throw new IllegalArgumentException("Loan closed");
         }
 
@@ -148,41 +287,14 @@ public class RepaymentServiceImpl implements RepaymentService {
 
         loan.setPrincipal(newPrincipal);
 
-        List<EmiSchedule> schedule =
-                emiScheduleRepository.findByLoanOrderByMonthIndexAsc(loan);
-
-        EmiSchedule firstPendingEmi = schedule.stream()
-                .filter(e -> e.getStatus() == EmiScheduleStatus.PENDING)
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("No pending EMIs"));
-
-        LocalDate nextDueDate = firstPendingEmi.getDueDate();
-
-        List<EmiSchedule> pendingEmis =
-                emiScheduleRepository.findByLoanAndStatusOrderByMonthIndexAsc(loan, EmiScheduleStatus.PENDING);
+        int emiRowsRecalculated = emiScheduleStore.reamortize(loan);
 
-        emiScheduleRepository.deleteAll(pendingEmis);
-
-        Loan loanView = new Loan();
-        loanView.setUser(loan.getUser());
-        loanView.setLoanName(loan.getLoanName());
-        loanView.setCategory(loan.getCategory());
-        loanView.setLender(loan.getLender());
-        loanView.setPrincipal(newPrincipal);
-        loanView.setInterestRate(loan.getInterestRate());
-        loanView.setEmiAmount(loan.getEmiAmount());
-        loanView.setTenureMonths(loan.getTenureMonths());
-        loanView.setEmiStartDate(nextDueDate);
-        loanView.setStartDate(loan.getStartDate());
-        loanView.setForeclosureAllowed(loan.getForeclosureAllowed());
-        loanView.setForeclosurePenaltyPercent(loan.getForeclosurePenaltyPercent());
-        loanView.setPartPaymentAllowed(loan.getPartPaymentAllowed());
-        loanView.setStatus(loan.getStatus());
-
-        List<EmiSchedule> newSchedule = emiScheduleGeneratorService.generateSchedule(loanView);
-
-        for (EmiSchedule e : newSchedule) e.setLoan(loan);
-        emiScheduleRepository.saveAll(newSchedule);
+        // Every pending month was recalculated; the ones no longer needed are gone
+        loan.setTotalEmiCount(loan.getTotalEmiCount() - loan.getPendingEmiCount() + emiRowsRecalculated);
+        loan.setPendingEmiCount(emiRowsRecalculated);
+        if (emiRowsRecalculated == 0) {
+            loan.setNextEmi(null);
+        }
 
         Payment payment = new Payment();
         payment.setLoan(loan);
@@ -197,12 +309,14 @@ public class RepaymentServiceImpl implements RepaymentService {
 
         loanStatusManager.updateLoanStatus(loan);
 
+        eventPublisher.publishEvent(new LoanChangedEvent(userId, loan.getId()));
+
         PartPaymentResponse response = new PartPaymentResponse();
         response.setOldPrincipal(oldPrincipal);
         response.setNewPrincipal(newPrincipal);
         response.setAmountPaid(amountPaid);
-        response.setEmiRowsRecalculated(newSchedule.size());
-        response.setLoanStatus(loan.getStatus());
+        response.setEmiRowsRecalculated(emiRowsRecalculated);
+        response.setLoanStatus(loan.getStatus().name());
 
         return response;
     }
@@ -222,8 +336,7 @@ public class RepaymentServiceImpl implements RepaymentService {
             throw new IllegalArgumentException("Foreclosure not allowed");
         }
 
-        if ("CLOSED".equalsIgnoreCase(loan.getStatus()) ||
-                "FORECLOSED".equalsIgnoreCase(loan.getStatus())) {
+        if (!loan.getStatus().isOpen()) {
             throw new IllegalArgumentException("Loan already resolved");
         }
 
@@ -242,16 +355,12 @@ public class RepaymentServiceImpl implements RepaymentService {
             throw new IllegalArgumentException("Insufficient foreclosure amount");
         }
 
-        List<EmiSchedule> pending =
-                emiScheduleRepository.findByLoanAndStatusOrderByMonthIndexAsc(loan, EmiScheduleStatus.PENDING);
-
-        for (EmiSchedule e : pending) {
-            e.setStatus(EmiScheduleStatus.FORECLOSED);
-        }
-        emiScheduleRepository.saveAll(pending);
+        int pendingEmiCountClosed = emiScheduleStore.foreclose(loan);
 
         loan.setPrincipal(BigDecimal.ZERO);
-        loan.setStatus("FORECLOSED");
+        loan.setStatus(LoanStatus.FORECLOSED);
+        loan.setPendingEmiCount(0);
+        loan.setNextEmi(null);
         loanRepository.save(loan);
 
         Payment payment = new Payment();
@@ -267,44 +376,89 @@ public class RepaymentServiceImpl implements RepaymentService {
 
         loanStatusManager.updateLoanStatus(loan);
 
+        eventPublisher.publishEvent(new LoanChangedEvent(userId, loan.getId()));
+
         ForeclosureResponse resp = new ForeclosureResponse();
         resp.setPrincipalOutstanding(principalOutstanding);
         resp.setPenaltyApplied(penaltyAmount);
         resp.setTotalAmountRequired(totalRequired);
         resp.setAmountPaid(amountPaid);
-        resp.setStatus(loan.getStatus());
-        resp.setPendingEmiCountClosed(pending.size());
+        resp.setStatus(loan.getStatus().name());
+        resp.setPendingEmiCountClosed(pendingEmiCountClosed);
 
         return resp;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RepaymentHistoryResponse> getRepaymentHistory(Long loanId, Long userId) {
 
-        Loan loan = loanRepository.findById(loanId)
+        // Ownership is checked on the user id alone, so neither Loan nor User is loaded
+        Long ownerId = loanRepository.findUserIdById(loanId)
                 .orElseThrow(() -> new IllegalArgumentException("Loan not found"));
 
-        if (!loan.getUser().getId().equals(userId)) {
+        if (!ownerId.equals(userId)) {
+            throw new IllegalArgumentException("Unauthorized");
+        }
+
+        return paymentRepository.findResponsesByLoanId(loanId);
+    }
+
+    // Keyset page on (loan_id, payment_date, id): the cursor is the last payment's date and id
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<RepaymentHistoryResponse> getRepaymentHistoryPage(Long loanId, Long userId, String cursor,
+                                                                        LocalDate from, LocalDate to, Integer limit) {
+
+        Long ownerId = loanRepository.findUserIdById(loanId)
+                .orElseThrow(() -> new IllegalArgumentException("Loan not found"));
+
+        if (!ownerId.equals(userId)) {
             throw new IllegalArgumentException("Unauthorized");
         }
 
-        List<Payment> payments = paymentRepository.findByLoanOrderByPaymentDateAsc(loan);
-        List<RepaymentHistoryResponse> list = new ArrayList<>();
-
-        for (Payment p : payments) {
-            RepaymentHistoryResponse r = new RepaymentHistoryResponse();
-            r.setPaymentId(p.getId());
-            r.setPaymentDate(p.getPaymentDate());
-            r.setAmountPaid(p.getAmountPaid());
-            r.setAllocatedToInterest(p.getAllocatedToInterest());
-            r.setAllocatedToPrincipal(p.getAllocatedToPrincipal());
-            r.setOutstandingAfterPayment(p.getOutstandingAfterPayment());
-            r.setPaymentType(p.getPaymentType().toString());
-            r.setRemarks(p.getRemarks());
-            list.add(r);
+        int pageSize = PageCursor.pageSize(limit);
+        LocalDate fromDate = from != null ? from : PageCursor.EARLIEST_DATE;
+        LocalDate toDate = to != null ? to : PageCursor.LATEST_DATE;
+
+        // One extra row tells whether there is a next page
+        List<RepaymentHistoryResponse> rows;
+        if (cursor == null) {
+            rows = paymentRepository.findFirstResponsePage(loanId, fromDate, toDate, Limit.of(pageSize + 1));
+        } else {
+            String[] keys = PageCursor.decode(cursor, 2);
+            try {
+                rows = paymentRepository.findResponsePageAfter(loanId, LocalDate.parse(keys[0]), Long.parseLong(keys[1]),
+                        fromDate, toDate, Limit.of(pageSize + 1));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
         }
 
-        return list;
+        boolean hasMore = rows.size() > pageSize;
+        List<RepaymentHistoryResponse> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        RepaymentHistoryResponse last = items.isEmpty() ? null : items.get(items.size() - 1);
+        String nextCursor = hasMore ? PageCursor.encode(last.getPaymentDate(), last.getPaymentId()) : null;
+
+        return new KeysetPage<>(items, nextCursor);
+    }
+
+    // One payment at a time from a database cursor, selected straight into the response shape
+    @Override
+    @Transactional(readOnly = true)
+    public void streamRepaymentHistory(Long loanId, Long userId, Consumer<RepaymentHistoryResponse> sink) {
+
+        Long ownerId = loanRepository.findUserIdById(loanId)
+                .orElseThrow(() -> new IllegalArgumentException("Loan not found"));
+
+        if (!ownerId.equals(userId)) {
+            throw new IllegalArgumentException("Unauthorized");
+        }
+
+        try (Stream<RepaymentHistoryResponse> payments = paymentRepository.streamResponsesByLoanId(loanId)) {
+            payments.forEach(sink);
+        }
     }
 
     @Override
@@ -328,54 +482,30 @@ public class RepaymentServiceImpl implements RepaymentService {
             actualPaymentDate = LocalDate.now();
         }
 
-        BigDecimal openingBalance = emi.getOpeningBalance();
-        BigDecimal monthlyRate = loan.getInterestRate()
-                .divide(BigDecimal.valueOf(1200), 34, RoundingMode.HALF_UP);
-
-        BigDecimal interest = openingBalance.multiply(monthlyRate)
-                .setScale(2, RoundingMode.HALF_UP);
-
-        BigDecimal principal = emi.getEmiAmount().subtract(interest)
-                .setScale(2, RoundingMode.HALF_UP);
-
-        BigDecimal closingBalance = openingBalance.subtract(principal);
-        if (closingBalance.compareTo(BigDecimal.ZERO) < 0) closingBalance = BigDecimal.ZERO;
-
-        closingBalance = closingBalance.setScale(2, RoundingMode.HALF_UP);
-
-        emi.setInterestComponent(interest);
-        emi.setPrincipalComponent(principal);
-        emi.setClosingBalance(closingBalance);
-        emi.setStatus(EmiScheduleStatus.PAID);
+        Payment p = settlePaid(loan, emi, emi.getEmiAmount(), actualPaymentDate,
+                "Manual EMI paid: Month " + emi.getMonthIndex());
         emi.setPaymentDate(actualPaymentDate);
         emiScheduleRepository.save(emi);
-
-        loan.setPrincipal(closingBalance);
         loanRepository.save(loan);
-
-        Payment p = new Payment();
-        p.setLoan(loan);
-        p.setPaymentDate(actualPaymentDate);
-        p.setAmountPaid(emi.getEmiAmount());
-        p.setAllocatedToInterest(interest);
-        p.setAllocatedToPrincipal(principal);
-        p.setOutstandingAfterPayment(closingBalance);
-        p.setPaymentType(PaymentType.EMI);
-        p.setRemarks("Manual EMI paid: Month " + emi.getMonthIndex());
         paymentRepository.save(p);
 
+        emiScheduleStore.afterSettled(loan, emi);
+        recordSettled(loan, emi);
+
         loanStatusManager.updateLoanStatus(loan);
 
+        eventPublisher.publishEvent(new LoanChangedEvent(userId, loan.getId()));
+
         MarkPaidResponse response = new MarkPaidResponse();
         response.setEmiId(emi.getId());
         response.setMonthIndex(emi.getMonthIndex());
         response.setActualPaymentDate(actualPaymentDate);
-        response.setOpeningBalance(openingBalance);
-        response.setInterestComponent(interest);
-        response.setPrincipalComponent(principal);
-        response.setClosingBalance(closingBalance);
-        response.setUpdatedLoanOutstanding(closingBalance);
-        response.setLoanStatus(loan.getStatus());
+        response.setOpeningBalance(emi.getOpeningBalance());
+        response.setInterestComponent(emi.getInterestComponent());
+        response.setPrincipalComponent(emi.getPrincipalComponent());
+        response.setClosingBalance(emi.getClosingBalance());
+        response.setUpdatedLoanOutstanding(emi.getClosingBalance());
+        response.setLoanStatus(loan.getStatus().name());
 
         return response;
     }
@@ -400,15 +530,49 @@ public class RepaymentServiceImpl implements RepaymentService {
         emi.setStatus(EmiScheduleStatus.MISSED);
         emiScheduleRepository.save(emi);
 
+        emiScheduleStore.afterSettled(loan, emi);
+        recordSettled(loan, emi);
+
         loanStatusManager.updateLoanStatus(loan);
 
+        eventPublisher.publishEvent(new LoanChangedEvent(userId, loan.getId()));
+
         MarkMissedResponse r = new MarkMissedResponse();
         r.setEmiId(emi.getId());
         r.setMonthIndex(emi.getMonthIndex());
         r.setDueDate(emi.getDueDate());
         r.setStatus("MISSED");
-        r.setLoanStatus(loan.getStatus());
+        r.setLoanStatus(loan.getStatus().name());
 
         return r;
     }
+
+    // Moves a settled EMI out of the pending count and, when it was the next-due EMI,
+    // advances the loan to the earliest stored PENDING row
+    private void recordSettled(Loan loan, EmiSchedule settled) {
+
+        countSettled(loan, settled);
+
+        if (settled.getId().equals(loan.getNextEmiId())) {
+            advanceNextEmi(loan);
+        }
+    }
+
+    private static void countSettled(Loan loan, EmiSchedule settled) {
+
+        loan.setPendingEmiCount(loan.getPendingEmiCount() - 1);
+
+        if (settled.getStatus() == EmiScheduleStatus.PAID) {
+            loan.setPaidEmiCount(loan.getPaidEmiCount() + 1);
+        } else if (settled.getStatus() == EmiScheduleStatus.MISSED) {
+            loan.setMissedEmiCount(loan.getMissedEmiCount() + 1);
+        }
+    }
+
+    private void advanceNextEmi(Loan loan) {
+        EmiSchedule nextPending = emiScheduleRepository
+                .findFirstByLoanAndStatusOrderByMonthIndexAsc(loan, EmiScheduleStatus.PENDING)
+                .orElse(null);
+        loan.setNextEmi(nextPending);
+    }
 }
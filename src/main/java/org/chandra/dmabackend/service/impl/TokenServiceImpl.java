@@ -0,0 +1,134 @@
+package org.chandra.dmabackend.service.impl;
+
+import org.chandra.dmabackend.dto.response.LoginResponse;
+import org.chandra.dmabackend.model.RefreshToken;
+import org.chandra.dmabackend.model.User;
+import org.chandra.dmabackend.repository.RefreshTokenRepository;
+import org.chandra.dmabackend.security.JwtUtil;
+import org.chandra.dmabackend.security.TokenRevocationService;
+import org.chandra.dmabackend.security.VerifiedToken;
+import org.chandra.dmabackend.service.JobCoordinator;
+import org.chandra.dmabackend.service.TokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+
+@Service
+public class TokenServiceImpl implements TokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationService revocationService;
+    private final JwtUtil jwtUtil;
+    private final JobCoordinator jobCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration refreshTokenTtl;
+
+    public TokenServiceImpl(RefreshTokenRepository refreshTokenRepository,
+                            TokenRevocationService revocationService,
+                            JwtUtil jwtUtil,
+                            JobCoordinator jobCoordinator,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${jwt.refresh-token.ttl:30d}") Duration refreshTokenTtl) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revocationService = revocationService;
+        this.jwtUtil = jwtUtil;
+        this.jobCoordinator = jobCoordinator;
+        this.transactionTemplate = transactionTemplate;
+        this.refreshTokenTtl = refreshTokenTtl;
+    }
+
+    @Override
+    @Transactional
+    public LoginResponse issueTokens(User user) {
+
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+
+        RefreshToken stored = new RefreshToken();
+        stored.setUser(user);
+        stored.setTokenHash(hash(refreshToken));
+        stored.setExpiresAt(LocalDateTime.now().plus(refreshTokenTtl));
+        refreshTokenRepository.save(stored);
+
+        LoginResponse response = new LoginResponse();
+        response.setToken(jwtUtil.generateToken(user.getId(), user.getEmail()));
+        response.setRefreshToken(refreshToken);
+        response.setUserId(user.getId());
+        response.setEmail(user.getEmail());
+
+        return response;
+    }
+
+    // Rotates the refresh token: the presented one is spent and a new pair is issued.
+    // Presenting a spent token means it leaked, so every session of that user is ended.
+    @Override
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public LoginResponse refresh(String refreshToken) {
+
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> new IllegalArgumentException("Invalid refresh token"));
+
+        LocalDateTime now = LocalDateTime.now();
+
+        if (stored.getExpiresAt().isBefore(now)) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+
+        if (refreshTokenRepository.markRevoked(stored.getId(), now) == 0) {
+            refreshTokenRepository.revokeAllForUser(stored.getUser().getId(), now);
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+
+        return issueTokens(stored.getUser());
+    }
+
+    @Override
+    @Transactional
+    public void logout(String refreshToken, String accessToken) {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .ifPresent(stored -> refreshTokenRepository.markRevoked(stored.getId(), now));
+
+        // The access token stays usable until it expires unless its id is revoked too
+        VerifiedToken verified = accessToken == null ? null : jwtUtil.verify(accessToken);
+        if (verified != null && verified.id() != null) {
+            revocationService.revoke(verified.id(),
+                    LocalDateTime.ofInstant(verified.expiresAt(), ZoneId.systemDefault()));
+        }
+    }
+
+    // One instance purges; the others skip. The delete runs in its own transaction,
+    // on a different connection from the job lock
+    @Scheduled(cron = "${jwt.refresh-token.purge-cron:0 30 3 * * *}")
+    public void purgeExpiredRefreshTokens() {
+        jobCoordinator.runExclusive("refresh-token-purge",
+                () -> transactionTemplate.executeWithoutResult(
+                        status -> refreshTokenRepository.deleteExpired(LocalDateTime.now())));
+    }
+
+    private static String hash(String refreshToken) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(refreshToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -6,66 +6,84 @@ import org.chandra.dmabackend.dto.response.LoginResponse;
 import org.chandra.dmabackend.dto.response.RegisterResponse;
 import org.chandra.dmabackend.model.User;
 import org.chandra.dmabackend.repository.UserRepository;
-import org.chandra.dmabackend.security.JwtUtil;
+import org.chandra.dmabackend.security.PasswordHasher;
+import org.chandra.dmabackend.service.TokenService;
 import org.chandra.dmabackend.service.UserService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
-    private final JwtUtil jwtUtil;
-
-    public UserServiceImpl(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    private final PasswordHasher passwordHasher;
+    private final TokenService tokenService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor taskExecutor;
+
+    // The password executor only hashes; the database work that follows a hash
+    // continues on the application task executor, so it never holds a hashing thread
+    public UserServiceImpl(UserRepository userRepository,
+                           PasswordHasher passwordHasher,
+                           TokenService tokenService,
+                           TransactionTemplate transactionTemplate,
+                           @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
-        this.jwtUtil = jwtUtil;
+        this.passwordHasher = passwordHasher;
+        this.tokenService = tokenService;
+        this.transactionTemplate = transactionTemplate;
+        this.taskExecutor = taskExecutor;
     }
 
     @Override
-    public RegisterResponse register(RegisterRequest request){
+    public CompletableFuture<RegisterResponse> register(RegisterRequest request){
 
         if(userRepository.existsByEmail(request.getEmail())){
             throw new IllegalArgumentException("Email already in use");
         }
 
-        User user =  new User();
-        user.setName(request.getName());
-        user.setEmail(request.getEmail());
-        user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
-
-        User savedUser = userRepository.save(user);
-
-        RegisterResponse response = new RegisterResponse();
-        response.setId(savedUser.getId());
-        response.setName(savedUser.getName());
-        response.setEmail(savedUser.getEmail());
-
-        return response;
+        return passwordHasher.encode(request.getPassword())
+                .thenApplyAsync(passwordHash -> transactionTemplate.execute(status -> createUser(request, passwordHash)),
+                        taskExecutor);
 
     }
 
     @Override
-    public LoginResponse login(LoginRequest request){
+    public CompletableFuture<LoginResponse> login(LoginRequest request){
 
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new IllegalArgumentException("Invalid Credentials"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
-            throw new IllegalArgumentException("Invalid Credentials");
-        }
+        return passwordHasher.matches(request.getPassword(), user.getPasswordHash()).thenApplyAsync(matches -> {
 
-        String token = jwtUtil.generateToken(user.getEmail());
+            if (!matches) {
+                throw new IllegalArgumentException("Invalid Credentials");
+            }
 
-        LoginResponse response = new LoginResponse();
-        response.setToken(token);
-        response.setUserId(user.getId());
-        response.setEmail(user.getEmail());
+            return tokenService.issueTokens(user);
+        }, taskExecutor);
 
-        return response;
+    }
+
+    private RegisterResponse createUser(RegisterRequest request, String passwordHash) {
+
+        User user =  new User();
+        user.setName(request.getName());
+        user.setEmail(request.getEmail());
+        user.setPasswordHash(passwordHash);
 
+        User savedUser = userRepository.save(user);
+
+        RegisterResponse response = new RegisterResponse();
+        response.setId(savedUser.getId());
+        response.setName(savedUser.getName());
+        response.setEmail(savedUser.getEmail());
+
+        return response;
     }
 
 }
@@ -0,0 +1,311 @@
+package org.chandra.dmabackend.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.chandra.dmabackend.dto.response.EmiScheduleResponse;
+import org.chandra.dmabackend.model.EmiSchedule;
+import org.chandra.dmabackend.model.EmiScheduleStatus;
+import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.repository.EmiScheduleRepository;
+import org.chandra.dmabackend.service.EmiScheduleGeneratorService;
+import org.chandra.dmabackend.service.EmiScheduleStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Stores settled rows (PAID / MISSED / FORECLOSED) plus the next PENDING row, so that the
+// next EMI always has an id. Later months are derived from that row and the loan terms.
+@Service
+@ConditionalOnProperty(name = "emi.schedule.storage", havingValue = "virtual")
+public class VirtualEmiScheduleStoreImpl implements EmiScheduleStore {
+
+    private final EmiScheduleRepository emiScheduleRepository;
+    private final EmiScheduleGeneratorService emiScheduleGeneratorService;
+    private final MaterializedEmiScheduleStoreImpl materializedStore;
+
+    // Computed months after the stored PENDING row, per loan id
+    private final Cache<Long, VirtualTail> tailCache;
+
+    public VirtualEmiScheduleStoreImpl(EmiScheduleRepository emiScheduleRepository,
+                                       EmiScheduleGeneratorService emiScheduleGeneratorService,
+                                       @Value("${emi.schedule.virtual-cache.max-size:10000}") long maxSize,
+                                       MeterRegistry meterRegistry) {
+        this.emiScheduleRepository = emiScheduleRepository;
+        this.emiScheduleGeneratorService = emiScheduleGeneratorService;
+        this.materializedStore = new MaterializedEmiScheduleStoreImpl(emiScheduleRepository, emiScheduleGeneratorService);
+
+        this.tailCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, tailCache, "emi.virtual-schedule");
+    }
+
+    @Override
+    public List<EmiSchedule> initialize(Loan loan) {
+
+        List<EmiSchedule> schedule = computeRows(loan, loan.getPrincipal(), loan.getEmiStartDate(), 0,
+                loan.getTenureMonths());
+
+        if (schedule.isEmpty()) {
+            return schedule;
+        }
+
+        EmiSchedule firstMonth = schedule.get(0);
+        firstMonth.setLoan(loan);
+        emiScheduleRepository.insertAll(List.of(firstMonth));
+
+        // The rest of the schedule was just derived, so seed the cache with it
+        List<EmiSchedule> tail = List.copyOf(schedule.subList(1, schedule.size()));
+        tailCache.put(loan.getId(), VirtualTail.of(loan, firstMonth, tail));
+
+        return schedule;
+    }
+
+    @Override
+    public List<EmiSchedule> loadSchedule(Loan loan) {
+
+        List<EmiSchedule> stored = emiScheduleRepository.findByLoanOrderByMonthIndexAsc(loan);
+
+        if (stored.isEmpty() || stored.get(stored.size() - 1).getStatus() != EmiScheduleStatus.PENDING) {
+            return stored;
+        }
+
+        List<EmiSchedule> tail = virtualTail(loan, stored.get(stored.size() - 1));
+
+        List<EmiSchedule> schedule = new ArrayList<>(stored.size() + tail.size());
+        schedule.addAll(stored);
+        schedule.addAll(tail);
+
+        return schedule;
+    }
+
+    @Override
+    public List<EmiScheduleResponse> loadScheduleResponses(Loan loan) {
+
+        List<EmiScheduleResponse> stored = emiScheduleRepository.findResponsesByLoanId(loan.getId());
+
+        if (stored.isEmpty() || !EmiScheduleStatus.PENDING.name().equals(stored.get(stored.size() - 1).getStatus())) {
+            return stored;
+        }
+
+        // Only the stored PENDING row is loaded as an entity, to derive the months after it
+        EmiSchedule pending = emiScheduleRepository
+                .findFirstByLoanAndStatusOrderByMonthIndexAsc(loan, EmiScheduleStatus.PENDING)
+                .orElseThrow();
+
+        List<EmiSchedule> tail = virtualTail(loan, pending);
+
+        List<EmiScheduleResponse> schedule = new ArrayList<>(stored.size() + tail.size());
+        schedule.addAll(stored);
+        for (EmiSchedule e : tail) {
+            schedule.add(EmiScheduleResponses.from(e));
+        }
+
+        return schedule;
+    }
+
+    @Override
+    public List<EmiScheduleResponse> loadSchedulePage(Loan loan, int afterMonthIndex, LocalDate from, LocalDate to, int limit) {
+
+        List<EmiScheduleResponse> page = new ArrayList<>(
+                emiScheduleRepository.findResponsePage(loan.getId(), afterMonthIndex, from, to, Limit.of(limit)));
+
+        if (page.size() == limit) {
+            return page;
+        }
+
+        // Derived months follow the stored PENDING row, which is always the last stored one
+        Optional<EmiSchedule> pending =
+                emiScheduleRepository.findFirstByLoanAndStatusOrderByMonthIndexAsc(loan, EmiScheduleStatus.PENDING);
+
+        if (pending.isEmpty()) {
+            return page;
+        }
+
+        for (EmiSchedule e : virtualTail(loan, pending.get())) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (e.getMonthIndex() > afterMonthIndex
+                    && !e.getDueDate().isBefore(from) && !e.getDueDate().isAfter(to)) {
+                page.add(EmiScheduleResponses.from(e));
+            }
+        }
+
+        return page;
+    }
+
+    @Override
+    public void streamSchedule(Loan loan, Consumer<EmiScheduleResponse> action) {
+
+        EmiScheduleResponse last = null;
+
+        try (Stream<EmiScheduleResponse> rows = emiScheduleRepository.streamResponsesByLoanId(loan.getId())) {
+            for (Iterator<EmiScheduleResponse> it = rows.iterator(); it.hasNext(); ) {
+                last = it.next();
+                action.accept(last);
+            }
+        }
+
+        if (last == null || !EmiScheduleStatus.PENDING.name().equals(last.getStatus())) {
+            return;
+        }
+
+        // Only the stored PENDING row is loaded as an entity; the derived months come from
+        // the cached tail, which is already in memory
+        EmiSchedule pending = emiScheduleRepository
+                .findFirstByLoanAndStatusOrderByMonthIndexAsc(loan, EmiScheduleStatus.PENDING)
+                .orElseThrow();
+
+        for (EmiSchedule e : virtualTail(loan, pending)) {
+            action.accept(EmiScheduleResponses.from(e));
+        }
+    }
+
+    @Override
+    public void afterSettled(Loan loan, EmiSchedule settled) {
+
+        if (emiScheduleRepository.existsByLoanAndStatus(loan, EmiScheduleStatus.PENDING)) {
+            return;
+        }
+
+        // Store the following month so that it can be paid by id
+        List<EmiSchedule> next = rowsAfter(loan, settled, 1);
+
+        for (EmiSchedule e : next) {
+            e.setLoan(loan);
+            emiScheduleRepository.save(e);
+        }
+    }
+
+    @Override
+    public int reamortize(Loan loan) {
+
+        List<EmiSchedule> pendingEmis =
+                emiScheduleRepository.findByLoanAndStatusOrderByMonthIndexAsc(loan, EmiScheduleStatus.PENDING);
+
+        if (pendingEmis.isEmpty()) {
+            throw new IllegalArgumentException("No pending EMIs");
+        }
+
+        int storedRows = materializedStore.reamortizeRows(loan, pendingEmis);
+        if (storedRows == 0) {
+            return 0;
+        }
+
+        return storedRows + virtualTail(loan, pendingEmis.get(storedRows - 1)).size();
+    }
+
+    @Override
+    public int foreclose(Loan loan) {
+
+        List<EmiSchedule> pending =
+                emiScheduleRepository.findByLoanAndStatusOrderByMonthIndexAsc(loan, EmiScheduleStatus.PENDING);
+
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        // Foreclosed months are settled rows, so the derived ones are stored as well
+        List<EmiSchedule> tail = rowsAfter(loan, pending.get(pending.size() - 1), Integer.MAX_VALUE);
+
+        for (EmiSchedule e : pending) {
+            e.setStatus(EmiScheduleStatus.FORECLOSED);
+        }
+        for (EmiSchedule e : tail) {
+            e.setLoan(loan);
+            e.setStatus(EmiScheduleStatus.FORECLOSED);
+        }
+
+        emiScheduleRepository.saveAll(pending);
+        emiScheduleRepository.insertAll(tail);
+        tailCache.invalidate(loan.getId());
+
+        return pending.size() + tail.size();
+    }
+
+    private List<EmiSchedule> virtualTail(Loan loan, EmiSchedule head) {
+
+        VirtualTail cached = tailCache.getIfPresent(loan.getId());
+        if (cached != null && cached.matches(loan, head)) {
+            return cached.rows();
+        }
+
+        List<EmiSchedule> rows = List.copyOf(rowsAfter(loan, head, Integer.MAX_VALUE));
+        tailCache.put(loan.getId(), VirtualTail.of(loan, head, rows));
+
+        return rows;
+    }
+
+    // Months following the given row, derived the same way the materialized schedule chains them
+    private List<EmiSchedule> rowsAfter(Loan loan, EmiSchedule previous, int maxRows) {
+
+        int remaining = Math.min(loan.getTenureMonths() - previous.getMonthIndex(), maxRows);
+
+        if (remaining <= 0 || previous.getClosingBalance().compareTo(BigDecimal.ZERO) <= 0) {
+            return List.of();
+        }
+
+        return computeRows(loan, previous.getClosingBalance(), previous.getDueDate().plusMonths(1),
+                previous.getMonthIndex(), remaining);
+    }
+
+    private List<EmiSchedule> computeRows(Loan loan, BigDecimal openingBalance, LocalDate firstDueDate,
+                                          int monthOffset, int months) {
+
+        Loan loanView = new Loan();
+        loanView.setPrincipal(openingBalance);
+        loanView.setInterestRate(loan.getInterestRate());
+        loanView.setEmiAmount(loan.getEmiAmount());
+        loanView.setTenureMonths(months);
+        loanView.setEmiStartDate(firstDueDate);
+
+        List<EmiSchedule> rows = emiScheduleGeneratorService.generateSchedule(loanView);
+
+        for (EmiSchedule row : rows) {
+            row.setLoan(null);
+            row.setMonthIndex(monthOffset + row.getMonthIndex());
+        }
+
+        return rows;
+    }
+
+    // The derived months only depend on the stored PENDING row and the loan terms
+    private record VirtualTail(Integer headMonthIndex,
+                               LocalDate headDueDate,
+                               BigDecimal headClosingBalance,
+                               BigDecimal interestRate,
+                               BigDecimal emiAmount,
+                               Integer tenureMonths,
+                               List<EmiSchedule> rows) {
+
+        static VirtualTail of(Loan loan, EmiSchedule head, List<EmiSchedule> rows) {
+            return new VirtualTail(head.getMonthIndex(), head.getDueDate(), head.getClosingBalance(),
+                    loan.getInterestRate(), loan.getEmiAmount(), loan.getTenureMonths(), rows);
+        }
+
+        boolean matches(Loan loan, EmiSchedule head) {
+            return Objects.equals(headMonthIndex, head.getMonthIndex())
+                    && Objects.equals(headDueDate, head.getDueDate())
+                    && headClosingBalance.compareTo(head.getClosingBalance()) == 0
+                    && interestRate.compareTo(loan.getInterestRate()) == 0
+                    && emiAmount.compareTo(loan.getEmiAmount()) == 0
+                    && Objects.equals(tenureMonths, loan.getTenureMonths());
+        }
+    }
+}
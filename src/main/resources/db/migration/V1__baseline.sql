@@ -0,0 +1,124 @@
+-- Schema as Hibernate created it with ddl-auto: update, up to keyset paging and token revocation.
+-- Databases created before Flyway are baselined at version 0 and run this too, so every
+-- statement only creates what is missing: tables and sequences from the first release stay
+-- as they are, and the columns, tables and indexes added since then are filled in.
+
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists loans_seq start with 1 increment by 50;
+create sequence if not exists emi_schedule_seq start with 1 increment by 50;
+create sequence if not exists payments_seq start with 1 increment by 50;
+create sequence if not exists refresh_tokens_seq start with 1 increment by 50;
+create sequence if not exists revoked_tokens_seq start with 1 increment by 50;
+
+create table if not exists users (
+    id bigint not null,
+    name varchar(255) not null,
+    email varchar(255) not null,
+    password_hash varchar(255) not null,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    primary key (id),
+    constraint uk6dotkott2kjsp8vw4d0m25fb7 unique (email)
+);
+
+create table if not exists loans (
+    id bigint not null,
+    user_id bigint not null,
+    loan_name varchar(150) not null,
+    category varchar(80) not null,
+    lender varchar(120) not null,
+    principal numeric(15,2) not null,
+    interest_rate numeric(5,2) not null,
+    tenure_months integer not null,
+    emi_amount numeric(12,2) not null,
+    start_date date,
+    emi_start_date date,
+    status varchar(20) not null,
+    foreclosure_allowed boolean not null,
+    foreclosure_penalty_percent numeric(5,2),
+    part_payment_allowed boolean not null,
+    total_emi_count integer default 0 not null,
+    paid_emi_count integer default 0 not null,
+    pending_emi_count integer default 0 not null,
+    missed_emi_count integer default 0 not null,
+    next_emi_id bigint,
+    next_emi_month_index integer,
+    next_emi_due_date date,
+    next_emi_amount numeric(12,2),
+    version bigint default 0 not null,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    primary key (id),
+    constraint FK6xxlcjc0rqtn5nq28vjnx5t9d foreign key (user_id) references users
+);
+
+-- Added to loans after the first release
+alter table loans add column if not exists total_emi_count integer default 0 not null;
+alter table loans add column if not exists paid_emi_count integer default 0 not null;
+alter table loans add column if not exists pending_emi_count integer default 0 not null;
+alter table loans add column if not exists missed_emi_count integer default 0 not null;
+alter table loans add column if not exists next_emi_id bigint;
+alter table loans add column if not exists next_emi_month_index integer;
+alter table loans add column if not exists next_emi_due_date date;
+alter table loans add column if not exists next_emi_amount numeric(12,2);
+alter table loans add column if not exists version bigint default 0 not null;
+
+create table if not exists emi_schedule (
+    id bigint not null,
+    loan_id bigint not null,
+    month_index integer not null,
+    due_date date not null,
+    opening_balance numeric(18,2) not null,
+    emi_amount numeric(18,2) not null,
+    interest_component numeric(18,2) not null,
+    principal_component numeric(18,2) not null,
+    closing_balance numeric(18,2) not null,
+    status varchar(255) not null check (status in ('PENDING','PAID','MISSED','FORECLOSED')),
+    payment_date date,
+    primary key (id),
+    constraint FKngwyttebd6cey6ujiqsxgjgb8 foreign key (loan_id) references loans
+);
+
+create table if not exists payments (
+    id bigint not null,
+    loan_id bigint not null,
+    payment_date date not null,
+    amount_paid numeric(38,2) not null,
+    allocated_to_interest numeric(38,2) not null,
+    allocated_to_principal numeric(38,2) not null,
+    outstanding_after_payment numeric(38,2) not null,
+    payment_type varchar(255) check (payment_type in ('EMI','PART_PAYMENT','FORECLOSURE')),
+    remarks varchar(255),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    primary key (id),
+    constraint FK3l3vmiw2j6ei20w7rjjh04o9y foreign key (loan_id) references loans
+);
+
+create table if not exists refresh_tokens (
+    id bigint not null,
+    user_id bigint not null,
+    token_hash varchar(64) not null,
+    expires_at timestamp(6) not null,
+    revoked_at timestamp(6),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    primary key (id),
+    constraint uko2mlirhldriil2y7krapq4frt unique (token_hash),
+    constraint FK1lih5y2npsf8u5o3vhdb9y0os foreign key (user_id) references users
+);
+
+create table if not exists revoked_tokens (
+    id bigint not null,
+    jti varchar(36) not null,
+    expires_at timestamp(6) not null,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    primary key (id),
+    constraint uk9mfwawnvm7caetg0ed8u6oehq unique (jti)
+);
+
+create index if not exists idx_emi_schedule_loan_month on emi_schedule (loan_id, month_index);
+create index if not exists idx_payments_loan_date_id on payments (loan_id, payment_date, id);
+create index if not exists idx_refresh_tokens_user on refresh_tokens (user_id);
+create index if not exists idx_revoked_tokens_expires_at on revoked_tokens (expires_at);
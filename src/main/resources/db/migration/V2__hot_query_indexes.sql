@@ -0,0 +1,21 @@
+-- Indexes for the per-loan, per-user and due-date lookups.
+-- (loan_id, month_index) and (loan_id, payment_date, id) already exist from V1.
+
+-- findByLoanAndStatusOrderByMonthIndexAsc / findFirstByLoanAndStatusOrderByMonthIndexAsc:
+-- equality on both leading columns, rows come back already in month order
+create index if not exists idx_emi_schedule_loan_status_month
+    on emi_schedule (loan_id, status, month_index);
+
+-- Due-date scans across all loans (overdue EMIs)
+create index if not exists idx_emi_schedule_status_due
+    on emi_schedule (status, due_date);
+
+-- Loans of a user (findByUserId, findSummariesByUserId)
+create index if not exists idx_loans_user
+    on loans (user_id, id);
+
+-- Only ACTIVE and OVERDUE loans still have EMIs to collect. Over time, closed and
+-- foreclosed loans make up most of the table, so they are left out
+create index if not exists idx_loans_open_next_due
+    on loans (next_emi_due_date)
+    where status in ('ACTIVE', 'OVERDUE');
@@ -0,0 +1,31 @@
+-- loans.status becomes a smallint holding LoanStatus codes:
+-- 1 ACTIVE, 2 OVERDUE, 3 CLOSED, 4 FORECLOSED.
+-- Any other value makes the cast produce null, and then the migration fails on not null.
+
+drop index if exists idx_loans_open_next_due;
+
+alter table loans
+    alter column status type smallint using (
+        case upper(trim(status))
+            when 'ACTIVE' then 1
+            when 'OVERDUE' then 2
+            when 'CLOSED' then 3
+            when 'FORECLOSED' then 4
+        end
+    );
+
+alter table loans
+    add constraint ck_loans_status check (status between 1 and 4);
+
+-- Open loans (ACTIVE, OVERDUE): batch jobs walk these by id and by next due date
+create index idx_loans_open_id
+    on loans (id)
+    where status in (1, 2);
+
+create index idx_loans_open_next_due
+    on loans (next_emi_due_date)
+    where status in (1, 2);
+
+-- Walks over a single status, e.g. only OVERDUE or only CLOSED loans
+create index idx_loans_status_id
+    on loans (status, id);
@@ -0,0 +1,96 @@
+package org.chandra.dmabackend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.chandra.dmabackend.exception.ServiceBusyException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdmissionControlInterceptorTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AdmissionControlInterceptor interceptor =
+            new AdmissionControlInterceptor(2, Duration.ZERO, 1, meterRegistry);
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void synchronousRequestReleasesOnCompletion() throws Exception {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/loans");
+
+        interceptor.preHandle(request, response, null);
+        assertEquals(1, available());
+
+        interceptor.afterCompletion(request, response, null, null);
+        interceptor.afterCompletion(request, response, null, null);
+        assertEquals(2, available());
+    }
+
+    @Test
+    void asyncRequestHoldsThePermitUntilTheResultIsWritten() throws Exception {
+
+        MockHttpServletRequest request = asyncRequest();
+
+        interceptor.preHandle(request, response, null);
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+
+        // The CompletableFuture is still running its transaction
+        assertEquals(1, available());
+
+        // Its result is written by the async dispatch
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, null);
+        assertEquals(1, available());
+
+        interceptor.afterCompletion(request, response, null, null);
+        assertEquals(2, available());
+
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertEquals(2, available());
+    }
+
+    @Test
+    void asyncRequestThatNeverDispatchesReleasesWhenTheCycleEnds() throws Exception {
+
+        MockHttpServletRequest request = asyncRequest();
+
+        interceptor.preHandle(request, response, null);
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        assertEquals(1, available());
+
+        // Client gone or timed out: only the async listener sees the end
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertEquals(2, available());
+    }
+
+    @Test
+    void rejectsWhenEveryPermitIsHeld() throws Exception {
+
+        interceptor.preHandle(asyncRequest(), response, null);
+        interceptor.preHandle(asyncRequest(), response, null);
+
+        assertThrows(ServiceBusyException.class, () -> interceptor.preHandle(asyncRequest(), response, null));
+        assertEquals(1.0, meterRegistry.get("web.admission.rejected").counter().count());
+    }
+
+    private double available() {
+        return meterRegistry.get("web.admission.available").gauge().value();
+    }
+
+    private static MockHttpServletRequest asyncRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setAsyncSupported(true);
+        request.startAsync();
+        return request;
+    }
+}
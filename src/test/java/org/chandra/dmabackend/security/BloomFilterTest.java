@@ -0,0 +1,85 @@
+package org.chandra.dmabackend.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void hasNoFalseNegatives() {
+
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<String> ids = randomIds(10_000);
+
+        ids.forEach(filter::put);
+
+        for (String id : ids) {
+            assertTrue(filter.mightContain(id), id);
+        }
+    }
+
+    @Test
+    void hasNoFalseNegativesUnderConcurrentPuts() throws Exception {
+
+        BloomFilter filter = new BloomFilter(40_000, 0.01);
+        int threads = 4;
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            batches.add(randomIds(10_000));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> puts = new ArrayList<>();
+            for (List<String> batch : batches) {
+                puts.add(pool.submit(() -> batch.forEach(filter::put)));
+            }
+            for (Future<?> put : puts) {
+                put.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (List<String> batch : batches) {
+            for (String id : batch) {
+                assertTrue(filter.mightContain(id), id);
+            }
+        }
+    }
+
+    @Test
+    void keepsFalsePositivesNearTheConfiguredRate() {
+
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        randomIds(10_000).forEach(filter::put);
+
+        int probes = 100_000;
+        int falsePositives = 0;
+        for (String id : randomIds(probes)) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+
+        // Twice the configured rate leaves room for chance
+        assertTrue(falsePositives < probes * 0.02, falsePositives + " false positives");
+    }
+
+    private static List<String> randomIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
+    }
+}
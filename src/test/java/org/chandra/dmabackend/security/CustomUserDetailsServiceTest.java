@@ -0,0 +1,77 @@
+package org.chandra.dmabackend.security;
+
+import org.chandra.dmabackend.model.User;
+import org.chandra.dmabackend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Runs against the configured PostgreSQL, each test with a user of its own
+@SpringBootTest
+class CustomUserDetailsServiceTest {
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        user = new User();
+        user.setName("Cache Test");
+        user.setEmail("cache-" + UUID.randomUUID() + "@example.com");
+        user.setPasswordHash("old-hash");
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void deleteUser() {
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void passwordChangeEvictsTheCachedUser() {
+
+        String email = user.getEmail();
+        assertSame(userDetailsService.loadUserByUsername(email), userDetailsService.loadUserByUsername(email));
+
+        update(changed -> changed.setPasswordHash("new-hash"));
+
+        assertEquals("new-hash", userDetailsService.loadUserByUsername(email).getPassword());
+    }
+
+    @Test
+    void emailChangeEvictsTheOldEmail() {
+
+        String oldEmail = user.getEmail();
+        assertEquals("old-hash", userDetailsService.loadUserByUsername(oldEmail).getPassword());
+
+        String newEmail = "moved-" + UUID.randomUUID() + "@example.com";
+        update(changed -> changed.setEmail(newEmail));
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername(oldEmail));
+        assertEquals(newEmail, userDetailsService.loadUserByUsername(newEmail).getUsername());
+    }
+
+    private void update(Consumer<User> change) {
+        transactionTemplate.executeWithoutResult(status ->
+                change.accept(userRepository.findById(user.getId()).orElseThrow()));
+    }
+}
@@ -0,0 +1,96 @@
+package org.chandra.dmabackend.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void secondVerificationIsServedFromTheCache() {
+
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100, meterRegistry);
+        String token = jwtUtil.generateToken(7L, "user@example.com");
+
+        VerifiedToken first = jwtUtil.verify(token);
+        VerifiedToken second = jwtUtil.verify(token);
+
+        assertEquals("user@example.com", first.subject());
+        assertEquals(7L, first.userId());
+        assertNotNull(first.id());
+        assertSame(first, second);
+        assertEquals(1.0, cacheGets("hit"));
+        assertEquals(1.0, cacheGets("miss"));
+    }
+
+    @Test
+    void cachedTokenStopsVerifyingAtItsExpiry() throws InterruptedException {
+
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 1_000, 100, meterRegistry);
+        String token = jwtUtil.generateToken(7L, "user@example.com");
+
+        VerifiedToken verified = jwtUtil.verify(token);
+        assertNotNull(verified);
+        assertSame(verified, jwtUtil.verify(token));
+
+        Thread.sleep(Math.max(verified.expiresAt().toEpochMilli() - System.currentTimeMillis(), 0) + 50);
+
+        assertNull(jwtUtil.verify(token));
+    }
+
+    @Test
+    void tokenWithoutExpiryIsAcceptedButNotCached() {
+
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100, meterRegistry);
+        String token = Jwts.builder()
+                .setSubject("user@example.com")
+                .claim(JwtUtil.USER_ID_CLAIM, 7L)
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        VerifiedToken first = jwtUtil.verify(token);
+        VerifiedToken second = jwtUtil.verify(token);
+
+        assertEquals("user@example.com", first.subject());
+        assertNull(first.expiresAt());
+        assertEquals(first, second);
+        assertEquals(0.0, cacheGets("hit"));
+        assertEquals(2.0, cacheGets("miss"));
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherKey() {
+
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100, meterRegistry);
+        String forged = Jwts.builder()
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("another-secret-another-secret-another-01".getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertNull(jwtUtil.verify(forged));
+        assertNull(jwtUtil.verify("not-a-token"));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "jwt.verified-claims")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
@@ -0,0 +1,119 @@
+package org.chandra.dmabackend.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(true, 1, Duration.ofMinutes(1), 1, Duration.ofMinutes(1),
+            4, 100, new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+
+    @Test
+    void rejectsWithRetryAfterUntilTheNextToken() throws Exception {
+
+        assertEquals(200, login("10.0.0.1", body("a@example.com")).getStatus());
+
+        MockHttpServletResponse rejected = login("10.0.0.1", body("b@example.com"));
+
+        // One token a minute: the next one is just under sixty seconds away
+        assertEquals(429, rejected.getStatus());
+        assertEquals("60", rejected.getHeader("Retry-After"));
+    }
+
+    @Test
+    void limitsByEmailFromThePeekedBody() throws Exception {
+
+        assertEquals(200, login("10.0.0.1", body("Same@Example.com")).getStatus());
+        assertEquals(429, login("10.0.0.2", body(" same@example.com")).getStatus());
+    }
+
+    @Test
+    void replaysBodyLargerThanThePeek() throws Exception {
+
+        // Padding pushes the email past the peeked head, so only the IP limit applies
+        String body = "{\"password\":\"secret\"," + " ".repeat(10_000) + "\"email\":\"a@example.com\"}";
+        AtomicReference<String> received = new AtomicReference<>();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("10.0.0.1", body), response, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse res) {
+                received.set(readBody((HttpServletRequest) request));
+            }
+        });
+
+        assertEquals(200, response.getStatus());
+        assertEquals(body, received.get());
+    }
+
+    @Test
+    void replaysSmallBodyThroughTheReader() throws Exception {
+
+        String body = body("a@example.com");
+        AtomicReference<String> received = new AtomicReference<>();
+
+        filter.doFilter(request("10.0.0.1", body), new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse res) {
+                try {
+                    received.set(request.getReader().readLine());
+                    assertNull(request.getReader().readLine());
+                    assertTrue(request.getInputStream().isFinished());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        assertEquals(body, received.get());
+    }
+
+    private MockHttpServletResponse login(String ip, String body) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(ip, body), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String ip, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static String body(String email) {
+        return "{\"email\":\"" + email + "\",\"password\":\"secret\"}";
+    }
+
+    private static String readBody(HttpServletRequest request) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1000];
+            int n;
+            while ((n = request.getInputStream().read(buffer, 0, buffer.length)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.chandra.dmabackend.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void refillsOneTokenPerPeriodShare() {
+
+        // Three tokens per three seconds: one token a second
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, Duration.ofSeconds(3), 1, 10);
+        long start = 1_000 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("client", start));
+        }
+
+        assertEquals(SECOND, limiter.tryAcquire("client", start));
+        assertEquals(SECOND / 2, limiter.tryAcquire("client", start + SECOND / 2));
+        assertEquals(0, limiter.tryAcquire("client", start + SECOND));
+    }
+
+    @Test
+    void refillStopsAtCapacity() {
+
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, Duration.ofSeconds(2), 1, 10);
+        long start = 1_000 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("client", start));
+
+        // An hour idle still leaves only two tokens
+        long later = start + TimeUnit.HOURS.toNanos(1);
+        assertEquals(0, limiter.tryAcquire("client", later));
+        assertEquals(0, limiter.tryAcquire("client", later));
+        assertTrue(limiter.tryAcquire("client", later) > 0);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedKeyOfAFullStripe() {
+
+        // One stripe of two keys, one token each, no refill within the test
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, Duration.ofHours(1), 1, 2);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("b", now));
+
+        // Touching a makes b the eldest, so c drops b
+        assertTrue(limiter.tryAcquire("a", now) > 0);
+        assertEquals(0, limiter.tryAcquire("c", now));
+
+        assertTrue(limiter.tryAcquire("a", now) > 0);
+        assertTrue(limiter.tryAcquire("c", now) > 0);
+
+        // b starts over with a full bucket
+        assertEquals(0, limiter.tryAcquire("b", now));
+    }
+}
@@ -0,0 +1,78 @@
+package org.chandra.dmabackend.security;
+
+import org.chandra.dmabackend.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against the configured PostgreSQL. A second TokenRevocationService stands in for
+// another instance: it shares the database but not this context's Bloom filter.
+@SpringBootTest
+class TokenRevocationServiceTest {
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void revocationOnAnotherInstanceIsSeenWithoutARebuild() throws InterruptedException {
+
+        String jti = UUID.randomUUID().toString();
+        assertFalse(revocationService.isRevoked(jti));
+
+        transactionTemplate.executeWithoutResult(status ->
+                otherInstance().revoke(jti, LocalDateTime.now().plusMinutes(15)));
+
+        assertTrue(eventually(() -> revocationService.isRevoked(jti)));
+    }
+
+    @Test
+    void rolledBackRevocationIsNotSent() throws InterruptedException {
+
+        String jti = UUID.randomUUID().toString();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            otherInstance().revoke(jti, LocalDateTime.now().plusMinutes(15));
+            status.setRollbackOnly();
+        });
+
+        // A committed revocation sent after it arrives, so the rolled-back one had its chance
+        String committed = UUID.randomUUID().toString();
+        transactionTemplate.executeWithoutResult(status ->
+                otherInstance().revoke(committed, LocalDateTime.now().plusMinutes(15)));
+
+        assertTrue(eventually(() -> revocationService.isRevoked(committed)));
+        assertFalse(revocationService.isRevoked(jti));
+    }
+
+    private TokenRevocationService otherInstance() {
+        return new TokenRevocationService(revokedTokenRepository, transactionTemplate, jdbcTemplate, 1000, 0.01);
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,160 @@
+package org.chandra.dmabackend.service.impl;
+
+import org.chandra.dmabackend.service.JobCoordinator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against the configured PostgreSQL; each runner holds its own pooled connection,
+// which is how separate instances look to the database
+@SpringBootTest
+class AdvisoryLockJobCoordinatorTest {
+
+    @Autowired
+    private JobCoordinator jobCoordinator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void skipsJobWhileAnotherRunnerHoldsIt() throws Exception {
+
+        String job = uniqueJob();
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> first = pool.submit(() -> jobCoordinator.runExclusive(job, () -> {
+                held.countDown();
+                await(release);
+            }));
+
+            assertTrue(held.await(10, TimeUnit.SECONDS));
+            assertFalse(jobCoordinator.runExclusive(job, () -> { }));
+
+            release.countDown();
+            assertTrue(first.get(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertTrue(jobCoordinator.runExclusive(job, () -> { }));
+    }
+
+    @Test
+    void releasesJobWhenWorkFails() {
+
+        String job = uniqueJob();
+
+        assertThrows(IllegalStateException.class, () -> jobCoordinator.runExclusive(job, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertTrue(jobCoordinator.runExclusive(job, () -> { }));
+    }
+
+    @Test
+    void releasesJobWhenUnlockFails() {
+
+        String job = uniqueJob();
+
+        // The work ends the session holding the lock, so the unlock fails on a dead connection
+        assertTrue(jobCoordinator.runExclusive(job, () -> jdbcTemplate.queryForObject(
+                "select pg_terminate_backend(pid) from pg_locks where locktype = 'advisory' and granted"
+                        + " and classid::bigint = (? & 4294967295) and pid <> pg_backend_pid()",
+                Boolean.class, (long) job.hashCode())));
+
+        assertTrue(jobCoordinator.runExclusive(job, () -> { }));
+        assertEquals(1, jdbcTemplate.queryForObject("select 1", Integer.class));
+    }
+
+    @Test
+    void refusesToRunInsideATransaction() {
+
+        String job = uniqueJob();
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(
+                status -> jobCoordinator.runExclusive(job, () -> { })));
+    }
+
+    @Test
+    void eachPartitionRunsOnOneRunnerAtATime() throws Exception {
+
+        String job = uniqueJob();
+        int partitions = 8;
+        int runners = 3;
+
+        Set<Integer> active = ConcurrentHashMap.newKeySet();
+        Set<Integer> ran = ConcurrentHashMap.newKeySet();
+        AtomicBoolean overlapped = new AtomicBoolean();
+
+        ExecutorService pool = Executors.newFixedThreadPool(runners);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < runners; i++) {
+                results.add(pool.submit(() -> jobCoordinator.runPartitions(job, partitions, partition -> {
+                    if (!active.add(partition)) {
+                        overlapped.set(true);
+                    }
+                    ran.add(partition);
+                    sleep(20);
+                    active.remove(partition);
+                })));
+            }
+
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(30, TimeUnit.SECONDS);
+            }
+
+            assertFalse(overlapped.get());
+            assertEquals(partitions, ran.size());
+            assertTrue(total >= partitions);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String uniqueJob() {
+        return "test-" + UUID.randomUUID();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.chandra.dmabackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.chandra.dmabackend.model.EmiSchedule;
+import org.chandra.dmabackend.model.Loan;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CentsEmiScheduleGeneratorServiceImplTest {
+
+    private final EmiBreakdownServiceImpl breakdownService = new EmiBreakdownServiceImpl();
+    private final EmiScheduleGeneratorServiceImpl bigDecimalEngine = new EmiScheduleGeneratorServiceImpl(breakdownService);
+    private final CentsEmiScheduleGeneratorServiceImpl centsEngine = new CentsEmiScheduleGeneratorServiceImpl(breakdownService);
+    private final EmiCalculationServiceImpl emiCalculationService = new EmiCalculationServiceImpl(100, List.of(), List.of(), new SimpleMeterRegistry());
+
+    @Test
+    void matchesBigDecimalEngineForCalculatedEmis() {
+
+        Random random = new Random(42);
+
+        for (int run = 0; run < 500; run++) {
+
+            BigDecimal principal = BigDecimal.valueOf(10_000_00L + random.nextInt(500_000_000), 2);
+            BigDecimal rate = BigDecimal.valueOf(random.nextInt(3601), 2);
+            int tenure = 1 + random.nextInt(360);
+            BigDecimal emi = emiCalculationService.calculateEmi(principal, rate, tenure);
+
+            assertSameSchedule(loan(principal, rate, tenure, emi));
+        }
+    }
+
+    @Test
+    void matchesBigDecimalEngineForUserSuppliedEmis() {
+
+        // EMI below the first month's interest grows the balance every month
+        assertSameSchedule(loan(new BigDecimal("500000"), new BigDecimal("12"), 24, new BigDecimal("4000")));
+
+        // EMI larger than the balance closes the loan early
+        assertSameSchedule(loan(new BigDecimal("100000"), new BigDecimal("9.5"), 60, new BigDecimal("30000.00")));
+    }
+
+    @Test
+    void matchesBigDecimalEngineOnHalfCentTies() {
+
+        // 6.00 at 1% p.a. accrues exactly half a paisa in month one
+        assertSameSchedule(loan(new BigDecimal("6.00"), new BigDecimal("1"), 3, new BigDecimal("2.00")));
+
+        // Rate divisible by 3 keeps the BigDecimal monthly rate exact
+        assertSameSchedule(loan(new BigDecimal("20.00"), new BigDecimal("3"), 3, new BigDecimal("7.00")));
+    }
+
+    @Test
+    void fallsBackForTermsWithSubPaiseDigits() {
+
+        assertSameSchedule(loan(new BigDecimal("250000.005"), new BigDecimal("8.125"), 120, new BigDecimal("3100.333")));
+    }
+
+    private void assertSameSchedule(Loan loan) {
+
+        List<EmiSchedule> expected = bigDecimalEngine.generateSchedule(loan);
+        List<EmiSchedule> actual = centsEngine.generateSchedule(loan);
+
+        assertEquals(expected.size(), actual.size(), "row count");
+
+        for (int i = 0; i < expected.size(); i++) {
+            EmiSchedule e = expected.get(i);
+            EmiSchedule a = actual.get(i);
+            String row = "month " + e.getMonthIndex();
+
+            assertEquals(e.getMonthIndex(), a.getMonthIndex(), row);
+            assertEquals(e.getDueDate(), a.getDueDate(), row);
+            assertEquals(e.getOpeningBalance(), a.getOpeningBalance(), row);
+            assertEquals(e.getEmiAmount(), a.getEmiAmount(), row);
+            assertEquals(e.getInterestComponent(), a.getInterestComponent(), row);
+            assertEquals(e.getPrincipalComponent(), a.getPrincipalComponent(), row);
+            assertEquals(e.getClosingBalance(), a.getClosingBalance(), row);
+            assertEquals(e.getStatus(), a.getStatus(), row);
+        }
+    }
+
+    private static Loan loan(BigDecimal principal, BigDecimal rate, int tenure, BigDecimal emi) {
+        Loan loan = new Loan();
+        loan.setPrincipal(principal);
+        loan.setInterestRate(rate);
+        loan.setTenureMonths(tenure);
+        loan.setEmiAmount(emi);
+        loan.setEmiStartDate(LocalDate.of(2025, 1, 31));
+        return loan;
+    }
+}
@@ -0,0 +1,91 @@
+package org.chandra.dmabackend.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmiCalculationServiceImplTest {
+
+    private static final MathContext MC = new MathContext(34, RoundingMode.HALF_UP);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final EmiCalculationServiceImpl service = new EmiCalculationServiceImpl(
+            100, List.of(new BigDecimal("8.5")), List.of(12), meterRegistry);
+
+    @Test
+    void matchesUncachedFormula() {
+
+        Random random = new Random(7);
+
+        for (int run = 0; run < 500; run++) {
+
+            BigDecimal principal = BigDecimal.valueOf(1_000_00L + random.nextInt(500_000_000), 2);
+            BigDecimal rate = BigDecimal.valueOf(1 + random.nextInt(3600), 2);
+            int tenure = 1 + random.nextInt(360);
+
+            // Twice, so the second call is served from the cache
+            assertEquals(uncachedEmi(principal, rate, tenure), service.calculateEmi(principal, rate, tenure));
+            assertEquals(uncachedEmi(principal, rate, tenure), service.calculateEmi(principal, rate, tenure));
+        }
+    }
+
+    @Test
+    void servesConfiguredPairsFromThePrecomputedTable() {
+
+        BigDecimal principal = new BigDecimal("250000");
+
+        assertEquals(uncachedEmi(principal, new BigDecimal("8.5"), 12),
+                service.calculateEmi(principal, new BigDecimal("8.50"), 12));
+
+        assertEquals(1.0, meterRegistry.get("emi.compound-factors.precomputed.hits").counter().count());
+        assertEquals(0.0, cacheGets("miss"));
+        assertEquals(0.0, cacheGets("hit"));
+    }
+
+    @Test
+    void recordsCacheMissThenHitForOtherPairs() {
+
+        BigDecimal principal = new BigDecimal("250000");
+
+        service.calculateEmi(principal, new BigDecimal("9.25"), 36);
+        service.calculateEmi(principal, new BigDecimal("9.250"), 36);
+        service.calculateEmi(new BigDecimal("1000"), new BigDecimal("9.25"), 36);
+
+        // Equal rates at different scales share one entry
+        assertEquals(1.0, cacheGets("miss"));
+        assertEquals(2.0, cacheGets("hit"));
+        assertEquals(0.0, meterRegistry.get("emi.compound-factors.precomputed.hits").counter().count());
+    }
+
+    @Test
+    void zeroRateSplitsPrincipalEvenly() {
+        assertEquals(new BigDecimal("8333.33"), service.calculateEmi(new BigDecimal("100000"), BigDecimal.ZERO, 12));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "emi.compound-factors")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
+    // The formula as it stood before memoization
+    private static BigDecimal uncachedEmi(BigDecimal principal, BigDecimal annualRate, int tenure) {
+
+        BigDecimal monthlyRate = annualRate.divide(new BigDecimal("100"), MC).divide(new BigDecimal("12"), MC);
+        BigDecimal pow = BigDecimal.ONE.add(monthlyRate, MC).pow(tenure, MC);
+        BigDecimal numerator = principal.multiply(monthlyRate, MC).multiply(pow, MC);
+
+        return numerator.divide(pow.subtract(BigDecimal.ONE, MC), MC).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,281 @@
+package org.chandra.dmabackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.chandra.dmabackend.model.EmiSchedule;
+import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.model.LoanStatus;
+import org.chandra.dmabackend.model.User;
+import org.chandra.dmabackend.repository.EmiScheduleRepository;
+import org.chandra.dmabackend.repository.LoanRepository;
+import org.chandra.dmabackend.repository.UserRepository;
+import org.chandra.dmabackend.service.EmiCalculationService;
+import org.chandra.dmabackend.service.EmiScheduleGeneratorService;
+import org.chandra.dmabackend.service.EmiScheduleStore;
+import org.chandra.dmabackend.service.JobCoordinator;
+import org.chandra.dmabackend.service.LoanStatusManager;
+import org.chandra.dmabackend.service.RepaymentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against the configured PostgreSQL. Seeded loans start in 1990 and are swept as of a
+// day in 1990, so no other loan in the database is past due; they are deleted afterwards.
+// EMIs fall due on the 5th, from February 1990 on.
+@SpringBootTest
+class OverdueEmiSweeperTest {
+
+    private static final LocalDate EMI_START = LocalDate.of(1990, 2, 5);
+
+    @Autowired
+    private EmiScheduleRepository emiScheduleRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EmiScheduleStore emiScheduleStore;
+
+    @Autowired
+    private EmiScheduleGeneratorService emiScheduleGeneratorService;
+
+    @Autowired
+    private EmiCalculationService emiCalculationService;
+
+    @Autowired
+    private LoanStatusManager loanStatusManager;
+
+    @Autowired
+    private RepaymentService repaymentService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JobCoordinator jobCoordinator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private final List<Long> loanIds = new ArrayList<>();
+
+    @BeforeEach
+    void createUser() {
+        user = new User();
+        user.setName("Sweep Test");
+        user.setEmail("sweep-" + UUID.randomUUID() + "@example.com");
+        user.setPasswordHash("unused");
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void deleteLoans() {
+        for (Long loanId : loanIds) {
+            jdbcTemplate.update("delete from payments where loan_id = ?", loanId);
+            jdbcTemplate.update("delete from emi_schedule where loan_id = ?", loanId);
+            jdbcTemplate.update("delete from loans where id = ?", loanId);
+        }
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void marksPastDueEmisMissedAndMovesLoanToOverdue() {
+
+        Long loanId = createLoan(12, emiScheduleStore);
+        long versionBefore = loan(loanId).getVersion();
+
+        // February, March and April are past due; May is not
+        long swept = sweeper(emiScheduleStore, 500).sweep(LocalDate.of(1990, 5, 1));
+
+        assertEquals(3, swept);
+        assertEquals(List.of("MISSED", "MISSED", "MISSED", "PENDING"), statuses(loanId).subList(0, 4));
+        assertCounters(loanId, 0, 3, 9);
+        assertNextEmi(loanId, 4);
+
+        Loan loan = loan(loanId);
+        assertEquals(LoanStatus.OVERDUE, loan.getStatus());
+        assertTrue(loan.getVersion() > versionBefore);
+    }
+
+    @Test
+    void leavesPaidEmisAndClosedLoansAlone() {
+
+        Long paidLoanId = createLoan(12, emiScheduleStore);
+        repaymentService.payEmi(loan(paidLoanId).getNextEmiId(), user.getId(), null);
+
+        Long closedLoanId = createLoan(12, emiScheduleStore);
+        jdbcTemplate.update("update loans set status = ? where id = ?", LoanStatus.CLOSED.getCode(), closedLoanId);
+        long closedVersion = loan(closedLoanId).getVersion();
+
+        long swept = sweeper(emiScheduleStore, 500).sweep(LocalDate.of(1990, 5, 1));
+
+        assertEquals(2, swept);
+        assertEquals(List.of("PAID", "MISSED", "MISSED", "PENDING"), statuses(paidLoanId).subList(0, 4));
+        assertCounters(paidLoanId, 1, 2, 9);
+        assertNextEmi(paidLoanId, 4);
+
+        assertTrue(statuses(closedLoanId).stream().allMatch("PENDING"::equals));
+        assertCounters(closedLoanId, 0, 0, 12);
+        assertEquals(LoanStatus.CLOSED, loan(closedLoanId).getStatus());
+        assertEquals(closedVersion, loan(closedLoanId).getVersion());
+    }
+
+    @Test
+    void loansSplitAcrossChunksAndInstancesEndConsistent() throws Exception {
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ids.add(createLoan(24, emiScheduleStore));
+        }
+
+        // Eleven EMIs per loan are past due, swept three at a time by two instances at once
+        LocalDate today = LocalDate.of(1991, 1, 1);
+        ExecutorService instances = Executors.newFixedThreadPool(2);
+        long swept = 0;
+        try {
+            Future<Long> first = instances.submit(() -> sweeper(emiScheduleStore, 3).sweep(today));
+            Future<Long> second = instances.submit(() -> sweeper(emiScheduleStore, 3).sweep(today));
+            swept = first.get(60, TimeUnit.SECONDS) + second.get(60, TimeUnit.SECONDS);
+        } finally {
+            instances.shutdownNow();
+        }
+
+        assertEquals(6 * 11, swept);
+        for (Long loanId : ids) {
+            List<String> statuses = statuses(loanId);
+            assertEquals(11, statuses.stream().filter("MISSED"::equals).count());
+            assertEquals(13, statuses.stream().filter("PENDING"::equals).count());
+            assertCounters(loanId, 0, 11, 13);
+            assertNextEmi(loanId, 12);
+            assertEquals(LoanStatus.OVERDUE, loan(loanId).getStatus());
+        }
+    }
+
+    @Test
+    void virtualScheduleStoresEachFollowingMonth() {
+
+        EmiScheduleStore virtualStore = new VirtualEmiScheduleStoreImpl(
+                emiScheduleRepository, emiScheduleGeneratorService, 100, new SimpleMeterRegistry());
+
+        Long loanId = createLoan(12, virtualStore);
+
+        long swept = sweeper(virtualStore, 500).sweep(LocalDate.of(1990, 5, 1));
+
+        // Only the first month is stored up front; each MISSED month brings in the next
+        assertEquals(3, swept);
+        assertEquals(List.of("MISSED", "MISSED", "MISSED", "PENDING"), statuses(loanId));
+        assertCounters(loanId, 0, 3, 9);
+        assertNextEmi(loanId, 4);
+        assertEquals(LoanStatus.OVERDUE, loan(loanId).getStatus());
+    }
+
+    @Test
+    void lastMissedEmiLeavesNoNextEmi() {
+
+        Long loanId = createLoan(3, emiScheduleStore);
+
+        long swept = sweeper(emiScheduleStore, 500).sweep(LocalDate.of(1991, 1, 1));
+
+        assertEquals(3, swept);
+        assertCounters(loanId, 0, 3, 0);
+        assertNull(loan(loanId).getNextEmiId());
+        assertEquals(LoanStatus.OVERDUE, loan(loanId).getStatus());
+    }
+
+    private OverdueEmiSweeper sweeper(EmiScheduleStore store, int chunkSize) {
+        return new OverdueEmiSweeper(emiScheduleRepository, loanRepository, store, transactionTemplate,
+                eventPublisher, jobCoordinator, chunkSize, 2, 4, new SimpleMeterRegistry());
+    }
+
+    private Long createLoan(int tenureMonths, EmiScheduleStore store) {
+
+        Long loanId = transactionTemplate.execute(status -> {
+
+            BigDecimal principal = BigDecimal.valueOf(120_000);
+            BigDecimal rate = BigDecimal.valueOf(12);
+
+            Loan loan = new Loan();
+            loan.setUser(user);
+            loan.setLoanName("Sweep");
+            loan.setCategory("PERSONAL");
+            loan.setLender("Bank");
+            loan.setPrincipal(principal);
+            loan.setInterestRate(rate);
+            loan.setTenureMonths(tenureMonths);
+            loan.setEmiAmount(emiCalculationService.calculateEmi(principal, rate, tenureMonths));
+            loan.setStartDate(EMI_START.minusMonths(1));
+            loan.setEmiStartDate(EMI_START);
+            loan.setForeclosureAllowed(true);
+            loan.setPartPaymentAllowed(true);
+            loan.setStatus(LoanStatus.ACTIVE);
+
+            Loan saved = loanRepository.save(loan);
+            List<EmiSchedule> schedule = store.initialize(saved);
+            loanStatusManager.recountEmis(saved, schedule);
+
+            return saved.getId();
+        });
+
+        loanIds.add(loanId);
+        return loanId;
+    }
+
+    private Loan loan(Long loanId) {
+        return loanRepository.findById(loanId).orElseThrow();
+    }
+
+    private List<String> statuses(Long loanId) {
+        return jdbcTemplate.queryForList(
+                "select status from emi_schedule where loan_id = ? order by month_index", String.class, loanId);
+    }
+
+    // Counters on the loan must match both the expected values and the stored rows
+    private void assertCounters(Long loanId, int paid, int missed, int pending) {
+
+        Loan loan = loan(loanId);
+        assertEquals(paid, loan.getPaidEmiCount());
+        assertEquals(missed, loan.getMissedEmiCount());
+        assertEquals(pending, loan.getPendingEmiCount());
+
+        List<String> statuses = statuses(loanId);
+        assertEquals(paid, statuses.stream().filter("PAID"::equals).count());
+        assertEquals(missed, statuses.stream().filter("MISSED"::equals).count());
+    }
+
+    private void assertNextEmi(Long loanId, int monthIndex) {
+
+        Loan loan = loan(loanId);
+        EmiSchedule next = emiScheduleRepository.findById(loan.getNextEmiId()).orElseThrow();
+
+        assertEquals(monthIndex, next.getMonthIndex());
+        assertEquals("PENDING", next.getStatus().name());
+        assertEquals(monthIndex, loan.getNextEmiMonthIndex());
+        assertEquals(EMI_START.plusMonths(monthIndex - 1), loan.getNextEmiDueDate());
+        assertEquals(0, next.getEmiAmount().compareTo(loan.getNextEmiAmount()));
+    }
+}
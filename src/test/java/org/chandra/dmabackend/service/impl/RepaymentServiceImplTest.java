@@ -0,0 +1,361 @@
+package org.chandra.dmabackend.service.impl;
+
+import org.chandra.dmabackend.dto.request.EmiPaymentItem;
+import org.chandra.dmabackend.dto.response.BatchEmiPaymentResponse;
+import org.chandra.dmabackend.dto.response.EmiPaymentResult;
+import org.chandra.dmabackend.dto.response.MarkPaidResponse;
+import org.chandra.dmabackend.dto.response.PayEmiResponse;
+import org.chandra.dmabackend.event.LoanChangedEvent;
+import org.chandra.dmabackend.model.EmiSchedule;
+import org.chandra.dmabackend.model.EmiScheduleStatus;
+import org.chandra.dmabackend.model.Loan;
+import org.chandra.dmabackend.model.LoanStatus;
+import org.chandra.dmabackend.model.User;
+import org.chandra.dmabackend.repository.EmiScheduleRepository;
+import org.chandra.dmabackend.repository.LoanRepository;
+import org.chandra.dmabackend.repository.PaymentRepository;
+import org.chandra.dmabackend.repository.UserRepository;
+import org.chandra.dmabackend.service.EmiCalculationService;
+import org.chandra.dmabackend.service.EmiScheduleStore;
+import org.chandra.dmabackend.service.LoanStatusManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Runs against the configured PostgreSQL with the materialized schedule store. The service is
+// built by hand around delegating mocks of the repository, status manager and event publisher,
+// so the per-loan work of a batch can be counted; seeded users and loans are deleted afterwards.
+@SpringBootTest
+class RepaymentServiceImplTest {
+
+    private static final LocalDate EMI_START = LocalDate.of(1990, 2, 5);
+
+    @Autowired
+    private EmiScheduleRepository emiScheduleRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EmiScheduleStore emiScheduleStore;
+
+    @Autowired
+    private EmiCalculationService emiCalculationService;
+
+    @Autowired
+    private LoanStatusManager loanStatusManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private EmiScheduleRepository countedEmiScheduleRepository;
+    private LoanStatusManager countedLoanStatusManager;
+    private ApplicationEventPublisher countedEventPublisher;
+    private RepaymentServiceImpl repaymentService;
+
+    private User user;
+    private User otherUser;
+    private final List<Long> loanIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = createUser();
+        otherUser = createUser();
+
+        countedEmiScheduleRepository = mock(EmiScheduleRepository.class, delegatesTo(emiScheduleRepository));
+        countedLoanStatusManager = mock(LoanStatusManager.class, delegatesTo(loanStatusManager));
+        countedEventPublisher = mock(ApplicationEventPublisher.class, delegatesTo(eventPublisher));
+
+        repaymentService = new RepaymentServiceImpl(countedEmiScheduleRepository, loanRepository, paymentRepository,
+                emiScheduleStore, countedLoanStatusManager, countedEventPublisher);
+    }
+
+    @AfterEach
+    void deleteLoans() {
+        for (Long loanId : loanIds) {
+            jdbcTemplate.update("delete from payments where loan_id = ?", loanId);
+            jdbcTemplate.update("delete from emi_schedule where loan_id = ?", loanId);
+            jdbcTemplate.update("delete from loans where id = ?", loanId);
+        }
+        userRepository.deleteById(user.getId());
+        userRepository.deleteById(otherUser.getId());
+    }
+
+    @Test
+    void duplicateUnknownAndForeignEmisAreRejectedPerItem() {
+
+        Long loanId = createLoan(user, 12);
+        Long foreignLoanId = createLoan(otherUser, 12);
+
+        Long first = emiId(loanId, 1);
+        Long foreign = emiId(foreignLoanId, 1);
+        Long unknown = Long.MAX_VALUE;
+
+        BatchEmiPaymentResponse response = payEmis(first, first, unknown, foreign);
+
+        assertEquals(1, response.getPaidCount());
+        assertEquals(3, response.getRejectedCount());
+
+        List<EmiPaymentResult> results = response.getResults();
+        assertTrue(results.get(0).isPaid());
+        assertEquals(first, results.get(0).getEmiId());
+        assertRejected(results.get(1), first, "Duplicate EMI in batch");
+        assertRejected(results.get(2), unknown, "EMI not found");
+        assertRejected(results.get(3), foreign, "Unauthorized access");
+
+        assertEquals(1, paymentCount(loanId));
+        assertCounters(loanId, 1, 0, 11);
+        assertNextEmi(loanId, 2);
+
+        assertEquals(0, paymentCount(foreignLoanId));
+        assertCounters(foreignLoanId, 0, 0, 12);
+        assertNextEmi(foreignLoanId, 1);
+    }
+
+    @Test
+    void itemsArePaidInMonthOrderWithinEachLoan() {
+
+        Long loanA = createLoan(user, 12);
+        Long loanB = createLoan(user, 12);
+
+        BatchEmiPaymentResponse response = payEmis(
+                emiId(loanA, 3), emiId(loanB, 1), emiId(loanA, 1), emiId(loanA, 2), emiId(loanB, 2));
+
+        assertEquals(5, response.getPaidCount());
+        assertEquals(0, response.getRejectedCount());
+
+        // Results stay in request order
+        List<EmiPaymentResult> results = response.getResults();
+        assertEquals(List.of(3, 1, 1, 2, 2), results.stream().map(r -> r.getPayment().getMonthIndex()).toList());
+
+        // Payments are recorded month by month, each leaving the previous month's closing balance
+        assertEquals(List.of("EMI payment for month 1", "EMI payment for month 2", "EMI payment for month 3"),
+                remarks(loanA));
+        assertEquals(List.of("EMI payment for month 1", "EMI payment for month 2"), remarks(loanB));
+
+        // Processed out of order, the loan would be left at month 1's closing balance
+        EmiSchedule third = emiScheduleRepository.findById(emiId(loanA, 3)).orElseThrow();
+        assertEquals(0, third.getClosingBalance().compareTo(loan(loanA).getPrincipal()));
+        assertEquals(0, third.getClosingBalance().compareTo(results.get(0).getPayment().getUpdatedLoanOutstanding()));
+
+        assertCounters(loanA, 3, 0, 9);
+        assertNextEmi(loanA, 4);
+        assertCounters(loanB, 2, 0, 10);
+        assertNextEmi(loanB, 3);
+    }
+
+    @Test
+    void nextEmiAndStatusAreRecomputedOncePerLoan() {
+
+        Long loanA = createLoan(user, 12);
+        Long loanB = createLoan(user, 12);
+
+        payEmis(emiId(loanA, 1), emiId(loanA, 2), emiId(loanA, 3), emiId(loanB, 1), emiId(loanB, 2));
+
+        for (Long loanId : List.of(loanA, loanB)) {
+            verify(countedEmiScheduleRepository, times(1)).findFirstByLoanAndStatusOrderByMonthIndexAsc(
+                    argThat(loan -> loan.getId().equals(loanId)), eq(EmiScheduleStatus.PENDING));
+            verify(countedLoanStatusManager, times(1)).updateLoanStatus(argThat(loan -> loan.getId().equals(loanId)));
+            verify(countedEventPublisher, times(1)).publishEvent(new LoanChangedEvent(user.getId(), loanId));
+        }
+        verify(countedLoanStatusManager, times(2)).updateLoanStatus(any());
+        verify(countedEventPublisher, times(2)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void payingTheLastEmiClosesTheLoan() {
+
+        // Interest-free, so the stored schedule ends on a closing balance of exactly zero
+        Long loanId = createLoan(user, 3, BigDecimal.ZERO);
+
+        BatchEmiPaymentResponse response = payEmis(emiId(loanId, 3), emiId(loanId, 2), emiId(loanId, 1));
+
+        assertEquals(3, response.getPaidCount());
+        for (EmiPaymentResult result : response.getResults()) {
+            assertEquals("CLOSED", result.getPayment().getLoanStatus());
+        }
+
+        Loan loan = loan(loanId);
+        assertEquals(LoanStatus.CLOSED, loan.getStatus());
+        assertEquals(0, loan.getPrincipal().compareTo(BigDecimal.ZERO));
+        assertNull(loan.getNextEmiId());
+        assertCounters(loanId, 3, 0, 0);
+
+        // A closed loan takes no further payments
+        BatchEmiPaymentResponse again = payEmis(emiId(loanId, 1));
+        assertEquals(0, again.getPaidCount());
+        assertRejected(again.getResults().get(0), emiId(loanId, 1), "Loan already closed");
+    }
+
+    @Test
+    void markEmiPaidRecordsTheSameSplitAsPayEmi() {
+
+        Long paidLoan = createLoan(user, 12);
+        Long markedLoan = createLoan(user, 12);
+        LocalDate paidOn = LocalDate.of(1990, 2, 3);
+
+        PayEmiResponse paid = transactionTemplate.execute(status ->
+                repaymentService.payEmi(emiId(paidLoan, 1), user.getId(), null));
+        MarkPaidResponse marked = transactionTemplate.execute(status ->
+                repaymentService.markEmiPaid(emiId(markedLoan, 1), user.getId(), paidOn));
+
+        assertEquals(0, paid.getInterestComponent().compareTo(marked.getInterestComponent()));
+        assertEquals(0, paid.getPrincipalComponent().compareTo(marked.getPrincipalComponent()));
+        assertEquals(0, paid.getClosingBalance().compareTo(marked.getClosingBalance()));
+        assertEquals(0, marked.getClosingBalance().compareTo(loan(markedLoan).getPrincipal()));
+
+        Map<String, Object> payment = jdbcTemplate.queryForMap(
+                "select payment_date, allocated_to_interest, allocated_to_principal, outstanding_after_payment, remarks"
+                        + " from payments where loan_id = ?", markedLoan);
+        assertEquals(paidOn, ((Date) payment.get("payment_date")).toLocalDate());
+        assertEquals(0, marked.getInterestComponent().compareTo((BigDecimal) payment.get("allocated_to_interest")));
+        assertEquals(0, marked.getPrincipalComponent().compareTo((BigDecimal) payment.get("allocated_to_principal")));
+        assertEquals(0, marked.getClosingBalance().compareTo((BigDecimal) payment.get("outstanding_after_payment")));
+        assertEquals("Manual EMI paid: Month 1", payment.get("remarks"));
+
+        EmiSchedule emi = emiScheduleRepository.findById(emiId(markedLoan, 1)).orElseThrow();
+        assertEquals(EmiScheduleStatus.PAID, emi.getStatus());
+        assertEquals(paidOn, emi.getPaymentDate());
+        assertCounters(markedLoan, 1, 0, 11);
+        assertNextEmi(markedLoan, 2);
+    }
+
+    private BatchEmiPaymentResponse payEmis(Long... emiIds) {
+        List<EmiPaymentItem> items = new ArrayList<>();
+        for (Long emiId : emiIds) {
+            items.add(new EmiPaymentItem(emiId, null));
+        }
+        return transactionTemplate.execute(status -> repaymentService.payEmis(user.getId(), items));
+    }
+
+    private User createUser() {
+        User u = new User();
+        u.setName("Repayment Test");
+        u.setEmail("repay-" + UUID.randomUUID() + "@example.com");
+        u.setPasswordHash("unused");
+        return userRepository.save(u);
+    }
+
+    private Long createLoan(User owner, int tenureMonths) {
+        return createLoan(owner, tenureMonths, BigDecimal.valueOf(12));
+    }
+
+    private Long createLoan(User owner, int tenureMonths, BigDecimal rate) {
+
+        Long loanId = transactionTemplate.execute(status -> {
+
+            BigDecimal principal = BigDecimal.valueOf(120_000);
+
+            Loan loan = new Loan();
+            loan.setUser(owner);
+            loan.setLoanName("Repay");
+            loan.setCategory("PERSONAL");
+            loan.setLender("Bank");
+            loan.setPrincipal(principal);
+            loan.setInterestRate(rate);
+            loan.setTenureMonths(tenureMonths);
+            loan.setEmiAmount(emiCalculationService.calculateEmi(principal, rate, tenureMonths));
+            loan.setStartDate(EMI_START.minusMonths(1));
+            loan.setEmiStartDate(EMI_START);
+            loan.setForeclosureAllowed(true);
+            loan.setPartPaymentAllowed(true);
+            loan.setStatus(LoanStatus.ACTIVE);
+
+            Loan saved = loanRepository.save(loan);
+            List<EmiSchedule> schedule = emiScheduleStore.initialize(saved);
+            loanStatusManager.recountEmis(saved, schedule);
+
+            return saved.getId();
+        });
+
+        loanIds.add(loanId);
+        return loanId;
+    }
+
+    private Loan loan(Long loanId) {
+        return loanRepository.findById(loanId).orElseThrow();
+    }
+
+    private Long emiId(Long loanId, int monthIndex) {
+        return jdbcTemplate.queryForObject(
+                "select id from emi_schedule where loan_id = ? and month_index = ?", Long.class, loanId, monthIndex);
+    }
+
+    private int paymentCount(Long loanId) {
+        return jdbcTemplate.queryForObject("select count(*) from payments where loan_id = ?", Integer.class, loanId);
+    }
+
+    private List<String> remarks(Long loanId) {
+        return jdbcTemplate.queryForList(
+                "select remarks from payments where loan_id = ? order by id", String.class, loanId);
+    }
+
+    private static void assertRejected(EmiPaymentResult result, Long emiId, String error) {
+        assertFalse(result.isPaid());
+        assertEquals(emiId, result.getEmiId());
+        assertEquals(error, result.getError());
+        assertNull(result.getPayment());
+    }
+
+    // Counters on the loan must match both the expected values and the stored rows
+    private void assertCounters(Long loanId, int paid, int missed, int pending) {
+
+        Loan loan = loan(loanId);
+        assertEquals(paid, loan.getPaidEmiCount());
+        assertEquals(missed, loan.getMissedEmiCount());
+        assertEquals(pending, loan.getPendingEmiCount());
+
+        List<String> statuses = jdbcTemplate.queryForList(
+                "select status from emi_schedule where loan_id = ? order by month_index", String.class, loanId);
+        assertEquals(paid, statuses.stream().filter("PAID"::equals).count());
+        assertEquals(missed, statuses.stream().filter("MISSED"::equals).count());
+        assertEquals(pending, statuses.stream().filter("PENDING"::equals).count());
+    }
+
+    private void assertNextEmi(Long loanId, int monthIndex) {
+
+        Loan loan = loan(loanId);
+        EmiSchedule next = emiScheduleRepository.findById(loan.getNextEmiId()).orElseThrow();
+
+        assertEquals(monthIndex, next.getMonthIndex());
+        assertEquals(EmiScheduleStatus.PENDING, next.getStatus());
+        assertEquals(monthIndex, loan.getNextEmiMonthIndex());
+    }
+}
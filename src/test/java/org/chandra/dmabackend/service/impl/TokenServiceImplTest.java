@@ -0,0 +1,123 @@
+package org.chandra.dmabackend.service.impl;
+
+import org.chandra.dmabackend.dto.response.LoginResponse;
+import org.chandra.dmabackend.model.User;
+import org.chandra.dmabackend.repository.UserRepository;
+import org.chandra.dmabackend.security.JwtUtil;
+import org.chandra.dmabackend.security.TokenRevocationService;
+import org.chandra.dmabackend.service.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against the configured PostgreSQL, each test with a user of its own
+@SpringBootTest
+class TokenServiceImplTest {
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TokenServiceImpl tokenServiceImpl;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        user = new User();
+        user.setName("Token Test");
+        user.setEmail("token-" + UUID.randomUUID() + "@example.com");
+        user.setPasswordHash("unused");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void refreshRotatesTheRefreshToken() {
+
+        LoginResponse login = tokenService.issueTokens(user);
+
+        LoginResponse refreshed = tokenService.refresh(login.getRefreshToken());
+
+        assertNotEquals(login.getRefreshToken(), refreshed.getRefreshToken());
+        assertEquals(user.getId(), jwtUtil.verify(refreshed.getToken()).userId());
+
+        // The rotated token carries on the session
+        assertNotEquals(refreshed.getRefreshToken(), tokenService.refresh(refreshed.getRefreshToken()).getRefreshToken());
+    }
+
+    @Test
+    void reusingASpentTokenEndsEverySessionOfTheUser() {
+
+        LoginResponse first = tokenService.issueTokens(user);
+        LoginResponse second = tokenService.issueTokens(user);
+
+        LoginResponse rotated = tokenService.refresh(first.getRefreshToken());
+
+        assertThrows(IllegalArgumentException.class, () -> tokenService.refresh(first.getRefreshToken()));
+
+        // The revocation is kept although the reuse was rejected
+        assertThrows(IllegalArgumentException.class, () -> tokenService.refresh(rotated.getRefreshToken()));
+        assertThrows(IllegalArgumentException.class, () -> tokenService.refresh(second.getRefreshToken()));
+    }
+
+    @Test
+    void rejectsUnknownRefreshToken() {
+        assertThrows(IllegalArgumentException.class, () -> tokenService.refresh("not-a-token"));
+    }
+
+    @Test
+    void logoutRevokesBothTokens() {
+
+        LoginResponse login = tokenService.issueTokens(user);
+        String jti = jwtUtil.verify(login.getToken()).id();
+
+        assertFalse(revocationService.isRevoked(jti));
+
+        tokenService.logout(login.getRefreshToken(), login.getToken());
+
+        assertTrue(revocationService.isRevoked(jti));
+        assertThrows(IllegalArgumentException.class, () -> tokenService.refresh(login.getRefreshToken()));
+
+        // A rebuilt filter still holds the id
+        revocationService.refresh();
+        assertTrue(revocationService.isRevoked(jti));
+    }
+
+    @Test
+    void purgeDeletesExpiredRefreshTokens() {
+
+        LoginResponse expired = tokenService.issueTokens(user);
+        jdbcTemplate.update("update refresh_tokens set expires_at = now() - interval '1 day' where user_id = ?",
+                user.getId());
+        LoginResponse live = tokenService.issueTokens(user);
+
+        tokenServiceImpl.purgeExpiredRefreshTokens();
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from refresh_tokens where user_id = ?", Integer.class, user.getId()));
+        assertThrows(IllegalArgumentException.class, () -> tokenService.refresh(expired.getRefreshToken()));
+        assertNotEquals(live.getRefreshToken(), tokenService.refresh(live.getRefreshToken()).getRefreshToken());
+    }
+}